@@ -0,0 +1,153 @@
+package com.torutk.spectrum.data;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative power (prefix sums on mW scale) of one spectrum, to integrate power over any band in O(1).
+ *
+ * <pre>
+ *     cumulative[i] = sum of mW of samples [0, i)
+ *     power of samples [from, to) = cumulative[to] - cumulative[from]
+ * </pre>
+ * The occupied bandwidth is searched by binary search on the cumulative power in O(log n).
+ * The index is built once from the encoded powers with a lookup table of 256 codes, and is immutable.
+ */
+public class BandPowerIndex {
+    private final SpectrumData data;
+    private final double[] cumulative;
+
+    /**
+     * Build the index of the specified spectrum.
+     *
+     * @param data spectrum to be indexed
+     */
+    BandPowerIndex(SpectrumData data) {
+        this.data = data;
+        double[] milliwattOfCode = new double[256];
+        for (int code = 0; code < milliwattOfCode.length; code++) {
+            milliwattOfCode[code] = SpectrumData.toMilliwatt(data.decode((byte) code));
+        }
+        byte[] powers = data.getPowersAsBytes();
+        cumulative = new double[powers.length + 1];
+        double sum = 0;
+        for (int i = 0; i < powers.length; i++) {
+            sum += milliwattOfCode[Byte.toUnsignedInt(powers[i])];
+            cumulative[i + 1] = sum;
+        }
+    }
+
+    /**
+     * Returns the total power of samples in the index range.
+     *
+     * @param fromIndex first sample (inclusive)
+     * @param toIndex last sample (exclusive)
+     * @return total power [mW]
+     */
+    public double powerMilliwatt(int fromIndex, int toIndex) {
+        return cumulative[toIndex] - cumulative[fromIndex];
+    }
+
+    /**
+     * Returns the total power of samples in the frequency band.
+     *
+     * @param lowerFrequency lower edge of band [MHz]
+     * @param upperFrequency upper edge of band [MHz]
+     * @return total power [dBm], -Infinity if no sample in the band
+     */
+    public double bandPower(double lowerFrequency, double upperFrequency) {
+        return SpectrumData.toDbm(powerMilliwatt(indexOf(lowerFrequency), indexOf(upperFrequency)));
+    }
+
+    /**
+     * Returns the band which contains the specified ratio of total power in the specified band,
+     * excluding the same power at each side.
+     *
+     * @param lowerFrequency lower edge of searched band [MHz]
+     * @param upperFrequency upper edge of searched band [MHz]
+     * @param ratio of power, e.g. 0.99
+     * @return occupied band
+     */
+    public Band occupiedBand(double lowerFrequency, double upperFrequency, double ratio) {
+        int from = indexOf(lowerFrequency);
+        int to = indexOf(upperFrequency);
+        if (from >= to) {
+            return new Band(lowerFrequency, lowerFrequency, Double.NEGATIVE_INFINITY);
+        }
+        double total = powerMilliwatt(from, to);
+        double excluded = total * (1 - ratio) / 2;
+        int lower = search(cumulative[from] + excluded, from, to);
+        int upper = search(cumulative[to] - excluded, lower, to);
+        return new Band(
+                frequencyOf(lower), frequencyOf(upper), SpectrumData.toDbm(powerMilliwatt(lower, upper))
+        );
+    }
+
+    /**
+     * Search the first index whose cumulative power reaches the specified value.
+     */
+    private int search(double value, int from, int to) {
+        int index = Arrays.binarySearch(cumulative, from, to + 1, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Returns the sample boundary index nearest to the frequency, clamped in [0, size].
+     *
+     * @param frequency [MHz]
+     * @return boundary index
+     */
+    public int indexOf(double frequency) {
+        long index = Math.round((frequency - data.getStartFrequency()) / data.getSamplingRate());
+        return (int) Math.max(0, Math.min(data.size(), index));
+    }
+
+    private double frequencyOf(int index) {
+        return data.getStartFrequency() + data.getSamplingRate() * index;
+    }
+
+    /**
+     * A frequency band with its total power.
+     */
+    public static class Band {
+        private final double lowerFrequency;
+        private final double upperFrequency;
+        private final double power;
+
+        Band(double lowerFrequency, double upperFrequency, double power) {
+            this.lowerFrequency = lowerFrequency;
+            this.upperFrequency = upperFrequency;
+            this.power = power;
+        }
+
+        public double getLowerFrequency() {
+            return lowerFrequency;
+        }
+
+        public double getUpperFrequency() {
+            return upperFrequency;
+        }
+
+        /**
+         * @return bandwidth [MHz]
+         */
+        public double getBandwidth() {
+            return upperFrequency - lowerFrequency;
+        }
+
+        /**
+         * @return total power in this band [dBm]
+         */
+        public double getPower() {
+            return power;
+        }
+
+        @Override
+        public String toString() {
+            return "Band{" +
+                    "lowerFrequency=" + lowerFrequency +
+                    ", upperFrequency=" + upperFrequency +
+                    ", power=" + power +
+                    '}';
+        }
+    }
+}
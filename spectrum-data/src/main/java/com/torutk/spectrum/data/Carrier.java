@@ -0,0 +1,85 @@
+package com.torutk.spectrum.data;
+
+/**
+ * A carrier detected in a spectrum by {@link CarrierDetector}.
+ */
+public class Carrier {
+    private final String spectrumName;
+    private final double centerFrequency;
+    private final double peakFrequency;
+    private final float peakPower;
+    private final double bandwidth;
+    private final float noiseFloor;
+
+    Carrier(
+            String spectrumName, double centerFrequency, double peakFrequency, float peakPower, double bandwidth,
+            float noiseFloor
+    ) {
+        this.spectrumName = spectrumName;
+        this.centerFrequency = centerFrequency;
+        this.peakFrequency = peakFrequency;
+        this.peakPower = peakPower;
+        this.bandwidth = bandwidth;
+        this.noiseFloor = noiseFloor;
+    }
+
+    /**
+     * @return name of the spectrum this carrier detected in
+     */
+    public String getSpectrumName() {
+        return spectrumName;
+    }
+
+    /**
+     * @return center of 3dB bandwidth [MHz]
+     */
+    public double getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    /**
+     * @return frequency of the peak power [MHz]
+     */
+    public double getPeakFrequency() {
+        return peakFrequency;
+    }
+
+    /**
+     * @return peak power [dBm]
+     */
+    public float getPeakPower() {
+        return peakPower;
+    }
+
+    /**
+     * @return 3dB bandwidth [MHz]
+     */
+    public double getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * @return noise floor estimated around the peak [dBm]
+     */
+    public float getNoiseFloor() {
+        return noiseFloor;
+    }
+
+    /**
+     * @return carrier to noise ratio, peak power above the noise floor [dB]
+     */
+    public float getCarrierToNoise() {
+        return peakPower - noiseFloor;
+    }
+
+    @Override
+    public String toString() {
+        return "Carrier{" +
+                "spectrumName='" + spectrumName + '\'' +
+                ", centerFrequency=" + centerFrequency +
+                ", peakPower=" + peakPower +
+                ", bandwidth=" + bandwidth +
+                ", noiseFloor=" + noiseFloor +
+                '}';
+    }
+}
@@ -0,0 +1,230 @@
+package com.torutk.spectrum.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Detects carriers in a spectrum on the encoded powers.
+ *
+ * <ol>
+ *     <li>Estimates the noise floor of each sample by the lower quartile of powers in the sliding window around it,
+ *     so that a wide carrier occupying a half of the window does not raise the floor.
+ *     The quartile is tracked by a histogram of 256 codes with a moving pointer,
+ *     so the estimation is in linear time of the number of samples.</li>
+ *     <li>A run of samples above the noise floor by the threshold is a carrier.
+ *     Samples are compared after smoothed by moving average, and a run continues till samples fall
+ *     below the half of threshold (hysteresis), so that noise does not split a run nor make a false carrier.
+ *     Short gaps in the run are bridged.</li>
+ *     <li>The 3dB bandwidth is searched on the smoothed samples from the peak of the run toward both sides,
+ *     overlapped carriers are merged into the higher one.</li>
+ * </ol>
+ * Note that the encoded power is reversed, a smaller code is a higher power.
+ * The detector has no mutable state, so an instance can be shared by threads.
+ */
+public class CarrierDetector {
+    private static final int MIN_WINDOW_SAMPLES = 33;
+    private static final int MIN_CARRIER_SAMPLES = 4;
+    private static final int MAX_GAP_SAMPLES = 3;
+    private static final int SMOOTHING_SAMPLES = 9;
+    private static final double FLOOR_RANK = 0.75; // lower quartile of power is upper quartile of code
+    private static final double HALF_POWER_DB = 3;
+
+    private final double thresholdDb;
+    private final double windowRatio;
+
+    /**
+     * Constructor with default parameters, threshold 6dB and noise floor window of 1/8 of span.
+     */
+    public CarrierDetector() {
+        this(6, 1d / 8);
+    }
+
+    /**
+     * Constructor with parameters.
+     *
+     * @param thresholdDb power above the noise floor to be detected as carrier [dB]
+     * @param windowRatio width of sliding window to estimate the noise floor, as a ratio to the span of spectrum
+     */
+    public CarrierDetector(double thresholdDb, double windowRatio) {
+        this.thresholdDb = thresholdDb;
+        this.windowRatio = windowRatio;
+    }
+
+    /**
+     * Detects carriers in the specified spectrum.
+     *
+     * @param data spectrum to be searched
+     * @return carriers in order of frequency
+     */
+    public List<Carrier> detect(SpectrumData data) {
+        try (var stage = PerformanceMonitor.begin("detect", data.getName())) {
+            stage.setSamples(data.size());
+            return detectCarriers(data);
+        }
+    }
+
+    /**
+     * Detects carriers in the specified spectra in parallel.
+     *
+     * @param spectra to be searched
+     * @return carriers of each spectrum, in order of the spectra
+     */
+    public List<List<Carrier>> detectAll(List<SpectrumData> spectra) {
+        return spectra.parallelStream().map(this::detect).collect(Collectors.toList());
+    }
+
+    private List<Carrier> detectCarriers(SpectrumData data) {
+        byte[] powers = data.getPowersAsBytes();
+        int n = powers.length;
+        List<Carrier> carriers = new ArrayList<>();
+        if (n == 0) {
+            return carriers;
+        }
+        int window = Math.max(MIN_WINDOW_SAMPLES, (int) (n * windowRatio));
+        byte[] floor = estimateNoiseFloor(powers, window);
+        double codesPerDb = 255 / (10 * data.getScale());
+        int thresholdCodes = Math.max(1, (int) Math.round(thresholdDb * codesPerDb));
+        int releaseCodes = Math.max(1, thresholdCodes / 2);
+        int halfPowerCodes = Math.max(1, (int) Math.round(HALF_POWER_DB * codesPerDb));
+
+        byte[] smoothed = smooth(powers, SMOOTHING_SAMPLES);
+
+        int i = 0;
+        while (i < n) {
+            if (!isAbove(smoothed, floor, i, thresholdCodes)) {
+                i++;
+                continue;
+            }
+            int runEnd = i + 1; // exclusive
+            int numAbove = 1;
+            for (int j = i + 1; j < n && j <= runEnd + MAX_GAP_SAMPLES; j++) {
+                if (isAbove(smoothed, floor, j, releaseCodes)) {
+                    runEnd = j + 1;
+                    numAbove++;
+                }
+            }
+            if (numAbove < MIN_CARRIER_SAMPLES) {
+                i = runEnd;
+                continue;
+            }
+            int peak = i; // on the raw samples
+            int smoothedPeak = i;
+            for (int j = i; j < runEnd; j++) {
+                if (Byte.toUnsignedInt(powers[j]) < Byte.toUnsignedInt(powers[peak])) {
+                    peak = j;
+                }
+                if (Byte.toUnsignedInt(smoothed[j]) < Byte.toUnsignedInt(smoothed[smoothedPeak])) {
+                    smoothedPeak = j;
+                }
+            }
+            int halfPowerCode = Byte.toUnsignedInt(smoothed[smoothedPeak]) + halfPowerCodes;
+            int lower = smoothedPeak; // 3dB bandwidth is searched within the run
+            while (lower > i && Byte.toUnsignedInt(smoothed[lower - 1]) <= halfPowerCode) {
+                lower--;
+            }
+            int upper = smoothedPeak;
+            while (upper < runEnd - 1 && Byte.toUnsignedInt(smoothed[upper + 1]) <= halfPowerCode) {
+                upper++;
+            }
+            double lowerFrequency = frequencyOf(data, lower);
+            double upperFrequency = frequencyOf(data, upper + 1);
+            var carrier = new Carrier(
+                    data.getName(), (lowerFrequency + upperFrequency) / 2, frequencyOf(data, peak),
+                    data.decode(powers[peak]), upperFrequency - lowerFrequency, data.decode(floor[peak])
+            );
+            Carrier previous = carriers.isEmpty() ? null : carriers.get(carriers.size() - 1);
+            if (previous == null
+                    || previous.getCenterFrequency() + previous.getBandwidth() / 2 <= lowerFrequency) {
+                carriers.add(carrier);
+            } else if (previous.getPeakPower() < carrier.getPeakPower()) {
+                carriers.set(carriers.size() - 1, carrier);
+            }
+            i = runEnd;
+        }
+        return carriers;
+    }
+
+    private static boolean isAbove(byte[] powers, byte[] floor, int index, int thresholdCodes) {
+        return Byte.toUnsignedInt(floor[index]) - Byte.toUnsignedInt(powers[index]) >= thresholdCodes;
+    }
+
+    /**
+     * Smooth codes by centered moving average, in linear time by running sum.
+     *
+     * @param powers encoded powers
+     * @param width of moving average [samples]
+     * @return smoothed codes
+     */
+    static byte[] smooth(byte[] powers, int width) {
+        int n = powers.length;
+        byte[] smoothed = new byte[n];
+        int half = width / 2;
+        int sum = 0;
+        int from = 0; // window is [from, to)
+        int to = 0;
+        for (int i = 0; i < n; i++) {
+            int newTo = Math.min(n, i + half + 1);
+            while (to < newTo) {
+                sum += Byte.toUnsignedInt(powers[to++]);
+            }
+            int newFrom = Math.max(0, i - half);
+            while (from < newFrom) {
+                sum -= Byte.toUnsignedInt(powers[from++]);
+            }
+            smoothed[i] = (byte) Math.round((float) sum / (to - from));
+        }
+        return smoothed;
+    }
+
+    /**
+     * Estimates the noise floor of each sample by the upper quartile of codes in the sliding window centered on it.
+     *
+     * @param powers encoded powers
+     * @param window width of sliding window [samples]
+     * @return encoded noise floor of each sample
+     */
+    static byte[] estimateNoiseFloor(byte[] powers, int window) {
+        int n = powers.length;
+        byte[] floor = new byte[n];
+        int[] histogram = new int[256];
+        int half = window / 2;
+        int from = 0; // window is [from, to)
+        int to = 0;
+        int quartile = 0;
+        int below = 0; // number of samples in window whose code is less than quartile
+        for (int i = 0; i < n; i++) {
+            int newTo = Math.min(n, i + half + 1);
+            while (to < newTo) {
+                int code = Byte.toUnsignedInt(powers[to++]);
+                histogram[code]++;
+                if (code < quartile) {
+                    below++;
+                }
+            }
+            int newFrom = Math.max(0, i - half);
+            while (from < newFrom) {
+                int code = Byte.toUnsignedInt(powers[from++]);
+                histogram[code]--;
+                if (code < quartile) {
+                    below--;
+                }
+            }
+            int rank = Math.max(1, (int) Math.ceil((to - from) * FLOOR_RANK)); // quartile is the code at this rank
+            while (below + histogram[quartile] < rank) {
+                below += histogram[quartile];
+                quartile++;
+            }
+            while (below >= rank) {
+                quartile--;
+                below -= histogram[quartile];
+            }
+            floor[i] = (byte) quartile;
+        }
+        return floor;
+    }
+
+    private static double frequencyOf(SpectrumData data, int index) {
+        return data.getStartFrequency() + data.getSamplingRate() * index;
+    }
+}
@@ -0,0 +1,191 @@
+package com.torutk.spectrum.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental carrier detection over a session of many sweeps.
+ *
+ * Each spectrum is detected only once when it is given at the first time, and its carriers are kept.
+ * Carriers of all sweeps are associated by frequency into tracks, e.g. transponders,
+ * which are indexed by their last frequency to find tracks within the tolerance in O(log number of tracks),
+ * so that a track follows a drifting carrier.
+ * Carriers of a sweep are matched together, the nearest pairs first, so that a track takes at most one carrier
+ * of a sweep even if carriers of the sweep are closer than the tolerance, and the rest start new tracks.
+ * Tracks are history of the session, so they are kept even if their spectra are removed.
+ */
+public class CarrierTracker {
+    private final CarrierDetector detector;
+    private final double toleranceFrequency;
+    private final Map<SpectrumData, List<Carrier>> detections = new IdentityHashMap<>();
+    private final TreeMap<Double, Track> tracks = new TreeMap<>();
+
+    /**
+     * Constructor with the detector and the tolerance of frequency to associate carriers into a track.
+     *
+     * @param detector to detect carriers
+     * @param toleranceFrequency max difference of center frequency in a track [MHz]
+     */
+    public CarrierTracker(CarrierDetector detector, double toleranceFrequency) {
+        this.detector = detector;
+        this.toleranceFrequency = toleranceFrequency;
+    }
+
+    /**
+     * Detects carriers of spectra not detected yet in parallel, and updates tracks by them.
+     *
+     * @param spectra spectra of current session
+     * @return carriers of the specified spectra, in order of the spectra
+     */
+    public synchronized List<Carrier> update(Collection<SpectrumData> spectra) {
+        List<SpectrumData> newSpectra = spectra.stream()
+                .filter(data -> !detections.containsKey(data))
+                .collect(Collectors.toList());
+        List<List<Carrier>> newDetections = detector.detectAll(newSpectra);
+        for (int i = 0; i < newSpectra.size(); i++) {
+            List<Carrier> carriers = newDetections.get(i);
+            detections.put(newSpectra.get(i), carriers);
+            track(carriers);
+        }
+        List<Carrier> carriers = new ArrayList<>();
+        for (SpectrumData data : spectra) {
+            carriers.addAll(detections.get(data));
+        }
+        return carriers;
+    }
+
+    /**
+     * Forget the carriers of the specified spectrum, tracks are not changed.
+     *
+     * @param data spectrum removed from the session
+     */
+    public synchronized void remove(SpectrumData data) {
+        detections.remove(data);
+    }
+
+    /**
+     * @return tracks in order of frequency
+     */
+    public synchronized List<Track> getTracks() {
+        return tracks.values().stream().map(Track::new).collect(Collectors.toList());
+    }
+
+    private void track(List<Carrier> sweepCarriers) {
+        List<Match> matches = new ArrayList<>();
+        for (Carrier carrier : sweepCarriers) {
+            double frequency = carrier.getCenterFrequency();
+            tracks.subMap(frequency - toleranceFrequency, true, frequency + toleranceFrequency, true).forEach(
+                    (lastFrequency, track) -> matches.add(
+                            new Match(carrier, track, Math.abs(lastFrequency - frequency))));
+        }
+        matches.sort(Comparator.comparingDouble(match -> match.distance));
+        Set<Carrier> matchedCarriers = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Track> matchedTracks = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Track> updated = new ArrayList<>();
+        for (Match match : matches) {
+            if (!matchedCarriers.contains(match.carrier) && matchedTracks.add(match.track)) {
+                matchedCarriers.add(match.carrier);
+                tracks.remove(match.track.lastFrequency);
+                match.track.add(match.carrier);
+                updated.add(match.track);
+            }
+        }
+        for (Carrier carrier : sweepCarriers) {
+            if (!matchedCarriers.contains(carrier)) {
+                Track track = new Track();
+                track.add(carrier);
+                updated.add(track);
+            }
+        }
+        updated.forEach(track -> tracks.put(track.lastFrequency, track));
+    }
+
+    /**
+     * Candidate pair of a carrier and a track within the tolerance.
+     */
+    private static class Match {
+        final Carrier carrier;
+        final Track track;
+        final double distance;
+
+        Match(Carrier carrier, Track track, double distance) {
+            this.carrier = carrier;
+            this.track = track;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Carriers of same frequency over sweeps.
+     */
+    public static class Track {
+        private double frequency;
+        private double lastFrequency;
+        private int count;
+        private float maxPower = Float.NEGATIVE_INFINITY;
+        private float minPower = Float.POSITIVE_INFINITY;
+        private String lastSpectrumName;
+
+        Track() {
+        }
+
+        Track(Track other) {
+            frequency = other.frequency;
+            lastFrequency = other.lastFrequency;
+            count = other.count;
+            maxPower = other.maxPower;
+            minPower = other.minPower;
+            lastSpectrumName = other.lastSpectrumName;
+        }
+
+        void add(Carrier carrier) {
+            count++;
+            frequency += (carrier.getCenterFrequency() - frequency) / count;
+            lastFrequency = carrier.getCenterFrequency();
+            maxPower = Math.max(maxPower, carrier.getPeakPower());
+            minPower = Math.min(minPower, carrier.getPeakPower());
+            lastSpectrumName = carrier.getSpectrumName();
+        }
+
+        /**
+         * @return mean center frequency [MHz]
+         */
+        public double getFrequency() {
+            return frequency;
+        }
+
+        /**
+         * @return center frequency at the last detected [MHz]
+         */
+        public double getLastFrequency() {
+            return lastFrequency;
+        }
+
+        /**
+         * @return the number of sweeps this track detected in
+         */
+        public int getCount() {
+            return count;
+        }
+
+        public float getMaxPower() {
+            return maxPower;
+        }
+
+        public float getMinPower() {
+            return minPower;
+        }
+
+        public String getLastSpectrumName() {
+            return lastSpectrumName;
+        }
+    }
+}
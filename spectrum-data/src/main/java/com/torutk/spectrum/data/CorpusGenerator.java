@@ -0,0 +1,250 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Generating a corpus of synthetic spectrum data files for load testing.
+ *
+ * Each file is one sweep of an archive, i.e. the file index is the time axis.
+ * A sweep consists of
+ * <ul>
+ *     <li>noise floor with random fluctuation</li>
+ *     <li>carriers at fixed center frequency, drifting by the specified frequency per sweep</li>
+ *     <li>interferers appearing at random frequency in a sweep with the specified probability</li>
+ * </ul>
+ * Files are generated in parallel, and each file has its own random sequence seeded by the base seed and the file index,
+ * so that the same corpus is reproduced by the same base seed regardless of the number of threads.
+ */
+public class CorpusGenerator {
+    private static final Logger logger = Logger.getLogger(CorpusGenerator.class.getName());
+    private static final long SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private Path outDirectory;
+    private String prefix = "sweep";
+    private int numFiles = 1;
+    private long numSamples = 10_000;
+    private double startFrequency = 10750d;
+    private double stopFrequency = 11750d;
+    private float referenceLevel = -30f;
+    private float scale = 5f;
+    private float noiseFloor = -70f;
+    private float noiseDeviation = 1.5f;
+    private double driftPerSweep = 0d;
+    private long seed = 0;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private final List<Signal> carriers = new ArrayList<>();
+    private final List<Signal> interferers = new ArrayList<>();
+
+    private CorpusGenerator() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        var generator = new CorpusGenerator();
+        for (int i = 0; i < args.length; i++) {
+            if ("-d".equals(args[i])) {
+                generator.outDirectory = Paths.get(args[++i]);
+            } else if ("-p".equals(args[i])) {
+                generator.prefix = args[++i];
+            } else if ("-n".equals(args[i])) {
+                generator.numFiles = Integer.parseInt(args[++i]);
+            } else if ("-s".equals(args[i])) {
+                generator.numSamples = Long.parseLong(args[++i]);
+            } else if ("-f".equals(args[i])) {
+                double[] values = parseValues(args[++i], 2);
+                generator.startFrequency = values[0];
+                generator.stopFrequency = values[1];
+            } else if ("-l".equals(args[i])) {
+                generator.noiseFloor = Float.parseFloat(args[++i]);
+            } else if ("-c".equals(args[i])) {
+                double[] values = parseValues(args[++i], 3);
+                generator.carriers.add(new Signal(values[0], values[1], values[2], 1));
+            } else if ("-j".equals(args[i])) {
+                double[] values = parseValues(args[++i], 3);
+                generator.interferers.add(new Signal(Double.NaN, values[1], values[2], values[0]));
+            } else if ("-r".equals(args[i])) {
+                generator.driftPerSweep = Double.parseDouble(args[++i]);
+            } else if ("-seed".equals(args[i])) {
+                generator.seed = Long.parseLong(args[++i]);
+            } else if ("-t".equals(args[i])) {
+                generator.threads = Integer.parseInt(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (generator.outDirectory == null) {
+            System.err.println("output directory must be specified.");
+            printUsageAndExit();
+        }
+        generator.run();
+    }
+
+    /**
+     * Generate all files of the corpus.
+     *
+     * @throws IOException if a file failed to write
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    void run() throws IOException, InterruptedException {
+        Files.createDirectories(outDirectory);
+        logger.info(() -> String.format("generating %d file(s) of %d samples into %s with %d thread(s)",
+                numFiles, numSamples, outDirectory, threads));
+        String nameFormat = String.format("%s_%%0%dd.dat", prefix, Integer.toString(numFiles - 1).length());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(numFiles);
+            for (int i = 0; i < numFiles; i++) {
+                int index = i;
+                Path path = outDirectory.resolve(String.format(nameFormat, index));
+                futures.add(executor.submit(() -> {
+                    generate(path, index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IOException("failed to generate corpus", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Generate one sweep file.
+     *
+     * @param path of file to be written
+     * @param sweepIndex index of sweep in the corpus
+     * @throws IOException if the file failed to write
+     */
+    void generate(Path path, int sweepIndex) throws IOException {
+        var random = new SplittableRandom(seed + SEED_GAMMA * (sweepIndex + 1));
+        List<Signal> signals = new ArrayList<>(carriers.size() + interferers.size());
+        for (Signal carrier : carriers) {
+            signals.add(carrier.shifted(driftPerSweep * sweepIndex));
+        }
+        for (Signal interferer : interferers) {
+            if (random.nextDouble() < interferer.probability) {
+                signals.add(interferer.at(startFrequency + random.nextDouble() * (stopFrequency - startFrequency)));
+            }
+        }
+        double step = (stopFrequency - startFrequency) / numSamples;
+        long[] index = {0};
+        SpectrumDataWriter.write(path, numSamples, startFrequency, stopFrequency, referenceLevel, scale, () -> {
+            double frequency = startFrequency + step * index[0]++;
+            double milliwatt = SpectrumData.toMilliwatt(noiseFloor + noise(random));
+            for (Signal signal : signals) {
+                milliwatt += signal.milliwattAt(frequency, noiseFloor);
+            }
+            return encode(SpectrumData.toDbm(milliwatt));
+        });
+    }
+
+    /**
+     * Approximately normal distributed noise by sum of uniform random numbers.
+     *
+     * @param random generator of this file
+     * @return noise [dB]
+     */
+    private double noise(SplittableRandom random) {
+        double sum = random.nextDouble() + random.nextDouble() + random.nextDouble() + random.nextDouble();
+        return (sum - 2) * Math.sqrt(3) * noiseDeviation;
+    }
+
+    /**
+     * encode power to the value of data file, reverse of {@link SpectrumData#decode(byte)}.
+     *
+     * @param dbm power [dBm]
+     * @return encoded power[0,255]
+     */
+    private int encode(double dbm) {
+        long code = Math.round((referenceLevel - dbm) * 255 / (scale * 10));
+        return (int) Math.max(0, Math.min(255, code));
+    }
+
+    private static double[] parseValues(String arg, int size) {
+        String[] tokens = arg.split(":");
+        if (tokens.length != size) {
+            printUsageAndExit();
+        }
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Double.parseDouble(tokens[i]);
+        }
+        return values;
+    }
+
+    /**
+     * A signal shaped as flat top with linear slopes in dB, the slope width is a quarter of bandwidth.
+     */
+    private static class Signal {
+        private final double center;
+        private final double bandwidth;
+        private final double level;
+        private final double probability;
+
+        /**
+         * @param center frequency [MHz]
+         * @param bandwidth [MHz]
+         * @param level above noise floor [dB]
+         * @param probability of appearing in a sweep
+         */
+        Signal(double center, double bandwidth, double level, double probability) {
+            this.center = center;
+            this.bandwidth = bandwidth;
+            this.level = level;
+            this.probability = probability;
+        }
+
+        Signal shifted(double offset) {
+            return new Signal(center + offset, bandwidth, level, probability);
+        }
+
+        Signal at(double frequency) {
+            return new Signal(frequency, bandwidth, level, probability);
+        }
+
+        double milliwattAt(double frequency, double noiseFloor) {
+            double distance = Math.abs(frequency - center);
+            double flat = bandwidth * 3 / 8;
+            if (distance <= flat) {
+                return SpectrumData.toMilliwatt(noiseFloor + level);
+            }
+            double above = level * (1 - (distance - flat) / (bandwidth / 4));
+            return above > 0 ? SpectrumData.toMilliwatt(noiseFloor + above) : 0;
+        }
+    }
+
+    static void printUsageAndExit() {
+        System.out.println("Command line usage: -d <directory> [-p <prefix>] [-n <files>] [-s <samples>] [-f <start>:<stop>] [-l <floor>]");
+        System.out.println("\t[-c <center>:<bandwidth>:<level> ...] [-j <probability>:<bandwidth>:<level> ...] [-r <drift>] [-seed <seed>] [-t <threads>]");
+        System.out.println("\tdirectory: output directory of generated files named <prefix>_<index>.dat");
+        System.out.println("\tprefix: prefix of file name (default: sweep)");
+        System.out.println("\tfiles: number of files, i.e. sweeps (default: 1)");
+        System.out.println("\tsamples: number of samples in a file (default: 10000)");
+        System.out.println("\tstart, stop: frequency range [MHz] (default: 10750:11750)");
+        System.out.println("\tfloor: noise floor [dBm] (default: -70)");
+        System.out.println("\t-c: carrier of center frequency [MHz], bandwidth [MHz] and level above floor [dB]");
+        System.out.println("\t-j: interferer at random frequency with probability in a sweep, bandwidth [MHz] and level above floor [dB]");
+        System.out.println("\tdrift: carrier frequency drift per sweep [MHz] (default: 0)");
+        System.out.println("\tseed: base seed of random numbers (default: 0)");
+        System.out.println("\tthreads: number of worker threads (default: number of processors)");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,89 @@
+package com.torutk.spectrum.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reader of the CSV file exported by {@link SpectrumDataExporter}.
+ *
+ * Lines before the first sample which do not start with a number are skipped as header.
+ * Lines are read one by one and only the powers are kept, as float values while reading.
+ * Frequencies are assumed to be equally spaced, the start and stop frequency are calculated from the first and
+ * the last frequency. The powers are encoded by {@link SpectrumData#ofPowers(String, double, double, float[])}.
+ */
+class CsvDataReader implements SpectrumDataReader {
+    private static final Charset CHARSET = Charset.forName("Windows-31J"); // same as the exporter
+    private static final String HEADER = "Frequency[MHz]";
+
+    @Override
+    public String getFormatName() {
+        return "CSV";
+    }
+
+    @Override
+    public String[] getFilePatterns() {
+        return new String[]{"*.csv"};
+    }
+
+    @Override
+    public boolean canRead(Path path, ByteBuffer head) {
+        return path.getFileName().toString().toLowerCase().endsWith(".csv")
+                || StandardCharsets.US_ASCII.decode(head).toString().startsWith(HEADER);
+    }
+
+    @Override
+    public SpectrumData read(Path path) throws IOException {
+        try (var stage = PerformanceMonitor.begin("parse", path.toString());
+             BufferedReader reader = Files.newBufferedReader(path, CHARSET)
+        ) {
+            float[] powers = new float[64 * 1024];
+            int size = 0;
+            double firstFrequency = Double.NaN;
+            double lastFrequency = Double.NaN;
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (size == 0 && isHeader(line))) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                try {
+                    lastFrequency = Double.parseDouble(line.substring(0, comma).trim());
+                    float power = Float.parseFloat(line.substring(comma + 1).trim());
+                    if (size == powers.length) {
+                        powers = Arrays.copyOf(powers, size * 2);
+                    }
+                    powers[size++] = power;
+                } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+                    throw new IOException(String.format("malformed line %d of %s: %s", lineNumber, path, line), ex);
+                }
+                if (size == 1) {
+                    firstFrequency = lastFrequency;
+                }
+            }
+            if (size < 2) {
+                throw new IOException("less than 2 samples in " + path);
+            }
+            stage.setSamples(size);
+            double step = (lastFrequency - firstFrequency) / (size - 1);
+            return SpectrumData.ofPowers(SpectrumDataReaders.baseNameOf(path, ".csv"),
+                    firstFrequency, lastFrequency + step, Arrays.copyOf(powers, size));
+        }
+    }
+
+    /**
+     * @param line the line before any sample
+     * @return true if the line is a header, not starting with a number
+     */
+    private static boolean isHeader(String line) {
+        char first = line.trim().charAt(0);
+        return !(Character.isDigit(first) || first == '-' || first == '+' || first == '.');
+    }
+}
@@ -0,0 +1,111 @@
+package com.torutk.spectrum.data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-place radix-2 complex FFT of a fixed power of two size.
+ *
+ * The twiddle factors are calculated once for each size, and a plan is shared by threads since it has
+ * no mutable state. The data are given as separated arrays of real and imaginary parts.
+ */
+class FftPlan {
+    private static final Map<Integer, FftPlan> plans = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int bits;
+    private final double[] cos;
+    private final double[] sin;
+
+    private FftPlan(int size) {
+        this.size = size;
+        bits = Integer.numberOfTrailingZeros(size);
+        cos = new double[size / 2];
+        sin = new double[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            double angle = -2 * Math.PI * i / size;
+            cos[i] = Math.cos(angle);
+            sin[i] = Math.sin(angle);
+        }
+    }
+
+    /**
+     * Returns the plan of the specified size, created at the first time and cached.
+     *
+     * @param size the number of points, must be a power of two
+     * @return the plan
+     */
+    static FftPlan of(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("size must be a power of two: " + size);
+        }
+        return plans.computeIfAbsent(size, FftPlan::new);
+    }
+
+    /**
+     * @param minSize the number of points needed
+     * @return the smallest power of two not less than minSize
+     */
+    static int sizeFor(int minSize) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, minSize - 1)) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Forward transform in place.
+     *
+     * @param re real parts, the length must not be less than the size
+     * @param im imaginary parts, the length must not be less than the size
+     */
+    void forward(double[] re, double[] im) {
+        transform(re, im, 1);
+    }
+
+    /**
+     * Inverse transform in place, scaled by 1/size.
+     *
+     * @param re real parts, the length must not be less than the size
+     * @param im imaginary parts, the length must not be less than the size
+     */
+    void inverse(double[] re, double[] im) {
+        transform(re, im, -1);
+        for (int i = 0; i < size; i++) {
+            re[i] /= size;
+            im[i] /= size;
+        }
+    }
+
+    private void transform(double[] re, double[] im, int direction) {
+        for (int i = 0; i < size; i++) {
+            int j = Integer.reverse(i) >>> (32 - bits);
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int half = 1; half < size; half <<= 1) {
+            int step = size / (half << 1);
+            for (int start = 0; start < size; start += half << 1) {
+                for (int k = 0; k < half; k++) {
+                    double wr = cos[k * step];
+                    double wi = direction * sin[k * step];
+                    int even = start + k;
+                    int odd = even + half;
+                    double tr = re[odd] * wr - im[odd] * wi;
+                    double ti = re[odd] * wi + im[odd] * wr;
+                    re[odd] = re[even] - tr;
+                    im[odd] = im[even] - ti;
+                    re[even] += tr;
+                    im[even] += ti;
+                }
+            }
+        }
+    }
+}
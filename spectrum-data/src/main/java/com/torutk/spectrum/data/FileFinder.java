@@ -0,0 +1,80 @@
+package com.torutk.spectrum.data;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Find file utility class.
+ */
+public class FileFinder {
+    private FileFinder() {
+    }
+
+    /**
+     * Find file by name from specified path within specified max depth.
+     *
+     * @param from search from this directory
+     * @param name of file to be found
+     * @param maxDepth search till this depth
+     * @return found path
+     * @throws IOException file not found, or cannot access file system
+     */
+    public static Path find(Path from, String name, int maxDepth) throws IOException {
+        try (Stream<Path> stream = Files.find(from, maxDepth, (path, attr) ->
+                path.getFileName().toString().equalsIgnoreCase(name))) {
+            return stream.findFirst().orElseThrow(() -> new FileNotFoundException(name));
+        }
+    }
+
+    /**
+     * Find regular files matched to the specified glob pattern.
+     *
+     * The directory part before the first glob meta character is the search root,
+     * e.g. {@code data/2020/**}{@code /*.dat} searches under {@code data/2020}.
+     *
+     * @param glob pattern of files, see {@link java.nio.file.FileSystem#getPathMatcher(String)}
+     * @return found paths in sorted order, empty if nothing matched
+     * @throws IOException cannot access file system
+     */
+    public static List<Path> findAll(String glob) throws IOException {
+        Path root = globRoot(glob);
+        if (root.equals(Paths.get(glob))) { // no meta character, plain file name
+            return Files.isRegularFile(root) ? List.of(root) : List.of();
+        }
+        PathMatcher matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+        try (Stream<Path> stream = Files.walk(root)) {
+            return stream
+                    .filter(path -> matcher.matches(path) && Files.isRegularFile(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the directory part of the glob pattern which has no glob meta characters.
+     *
+     * @param glob pattern of files
+     * @return the root directory to be searched from
+     */
+    private static Path globRoot(String glob) {
+        int metaIndex = -1;
+        for (int i = 0; i < glob.length(); i++) {
+            if ("*?[{".indexOf(glob.charAt(i)) >= 0) {
+                metaIndex = i;
+                break;
+            }
+        }
+        if (metaIndex < 0) {
+            return Paths.get(glob);
+        }
+        int separatorIndex = Math.max(glob.lastIndexOf('/', metaIndex), glob.lastIndexOf('\\', metaIndex));
+        return separatorIndex < 0 ? Paths.get("") : Paths.get(glob.substring(0, separatorIndex + 1));
+    }
+}
@@ -0,0 +1,192 @@
+package com.torutk.spectrum.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates the frequency offset between two spectra by cross-correlation, e.g. drift of local oscillator
+ * of the analyzer between sweeps.
+ *
+ * The powers of the target are sampled at the frequencies of the reference, then both are correlated
+ * by FFT in O(n log n). The two real sequences are packed into one complex FFT as real and imaginary parts,
+ * and the correlation is normalized by the number of overlapped samples at each lag.
+ * The peak of the correlation is refined to a fraction of sample by parabolic interpolation.
+ * FFT plans are shared and the scratch buffers are reused by each thread, so an instance can be shared by threads.
+ */
+public class FrequencyOffsetEstimator {
+    private static final ThreadLocal<double[][]> scratch = ThreadLocal.withInitial(() -> new double[2][0]);
+
+    private final double maxOffsetRatio;
+
+    /**
+     * Constructor with default max offset, 1/64 of span.
+     */
+    public FrequencyOffsetEstimator() {
+        this(1d / 64);
+    }
+
+    /**
+     * Constructor with max offset.
+     *
+     * @param maxOffsetRatio max offset to be searched, as a ratio to the span of the reference
+     */
+    public FrequencyOffsetEstimator(double maxOffsetRatio) {
+        this.maxOffsetRatio = maxOffsetRatio;
+    }
+
+    /**
+     * Estimates the frequency offset of the target from the reference,
+     * i.e. the target is the reference shifted up by the offset.
+     *
+     * @param reference spectrum
+     * @param target spectrum
+     * @return offset [MHz]
+     */
+    public double estimate(SpectrumData reference, SpectrumData target) {
+        try (var stage = PerformanceMonitor.begin("offset", target.getName())) {
+            stage.setSamples(reference.size());
+            return estimateLag(reference, target) * reference.getSamplingRate();
+        }
+    }
+
+    /**
+     * Aligns the target to the reference, by shifting the frequencies of the target by the estimated offset.
+     * The powers are shared with the target, not copied nor resampled.
+     *
+     * @param reference spectrum
+     * @param target spectrum
+     * @return the aligned target
+     */
+    public SpectrumData align(SpectrumData reference, SpectrumData target) {
+        return shift(target, -estimate(reference, target));
+    }
+
+    /**
+     * Aligns all the targets to the reference in parallel.
+     *
+     * @param reference spectrum
+     * @param targets spectra
+     * @return aligned targets, in order of the targets
+     */
+    public List<SpectrumData> alignAll(SpectrumData reference, Collection<SpectrumData> targets) {
+        return targets.parallelStream()
+                .map(target -> align(reference, target))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Shifts the frequencies of the spectrum.
+     *
+     * @param data spectrum
+     * @param offset to be added to the frequencies [MHz]
+     * @return the shifted spectrum sharing the powers and id with the specified spectrum
+     */
+    public static SpectrumData shift(SpectrumData data, double offset) {
+        return new SpectrumData(
+                data.getId(), data.getName(), data.getStartFrequency() + offset, data.getStopFrequency() + offset,
+                data.getReferenceLevel(), data.getScale(), data.getPowersAsBytes()
+        );
+    }
+
+    /**
+     * @return offset of the target in the number of reference samples, with fraction
+     */
+    private double estimateLag(SpectrumData reference, SpectrumData target) {
+        int n = reference.size();
+        int maxLag = Math.max(1, Math.min(n - 1, (int) (n * maxOffsetRatio)));
+        FftPlan plan = FftPlan.of(FftPlan.sizeFor(n + maxLag)); // enough padding not to wrap around
+        int size = plan.size();
+        double[][] buffers = scratch.get();
+        if (buffers[0].length < size) {
+            buffers[0] = new double[size];
+            buffers[1] = new double[size];
+        }
+        double[] re = buffers[0];
+        double[] im = buffers[1];
+        sampleOnReference(target, reference, re, size);
+        sampleOnReference(reference, reference, im, size);
+
+        plan.forward(re, im);
+        crossSpectrum(re, im, size);
+        plan.inverse(re, im);
+
+        int peakLag = 0;
+        double peak = Double.NEGATIVE_INFINITY;
+        for (int lag = -maxLag; lag <= maxLag; lag++) {
+            double value = correlationAt(re, lag, n, size);
+            if (value > peak) {
+                peak = value;
+                peakLag = lag;
+            }
+        }
+        if (Math.abs(peakLag) == maxLag) {
+            return peakLag;
+        }
+        double before = correlationAt(re, peakLag - 1, n, size);
+        double after = correlationAt(re, peakLag + 1, n, size);
+        double curvature = before - 2 * peak + after;
+        return curvature < 0 ? peakLag + (before - after) / (2 * curvature) : peakLag;
+    }
+
+    /**
+     * Sample the powers of the data at the sample frequencies of the reference with mean removed,
+     * samples out of the data and the padding are zero.
+     */
+    private static void sampleOnReference(SpectrumData data, SpectrumData reference, double[] values, int size) {
+        byte[] codes = data.getPowersAsBytes();
+        int n = reference.size();
+        double sum = 0;
+        int count = 0;
+        boolean sameGrid = data == reference || (data.size() == n
+                && data.getStartFrequency() == reference.getStartFrequency()
+                && data.getStopFrequency() == reference.getStopFrequency());
+        for (int i = 0; i < n; i++) {
+            int index = i;
+            if (!sameGrid) {
+                double frequency = reference.getStartFrequency() + reference.getSamplingRate() * (i + 0.5);
+                index = (int) Math.floor((frequency - data.getStartFrequency()) / data.getSamplingRate());
+            }
+            if (0 <= index && index < codes.length) {
+                values[i] = data.decode(codes[index]);
+                sum += values[i];
+                count++;
+            } else {
+                values[i] = Double.NaN;
+            }
+        }
+        double mean = count == 0 ? 0 : sum / count;
+        for (int i = 0; i < n; i++) {
+            values[i] = Double.isNaN(values[i]) ? 0 : values[i] - mean;
+        }
+        Arrays.fill(values, n, size, 0);
+    }
+
+    /**
+     * Separates the spectra of the two real sequences packed as real and imaginary parts,
+     * then multiplies the spectrum of the real part by the conjugate of the spectrum of the imaginary part.
+     */
+    private static void crossSpectrum(double[] re, double[] im, int size) {
+        for (int k = 0; k <= size / 2; k++) {
+            int m = (size - k) % size;
+            double ar = (re[k] + re[m]) / 2;
+            double ai = (im[k] - im[m]) / 2;
+            double br = (im[k] + im[m]) / 2;
+            double bi = -(re[k] - re[m]) / 2;
+            double cr = ar * br + ai * bi;
+            double ci = ai * br - ar * bi;
+            re[k] = cr;
+            im[k] = ci;
+            re[m] = cr; // conjugate symmetric since the correlation is real
+            im[m] = -ci;
+        }
+    }
+
+    /**
+     * @return correlation at the lag normalized by the number of overlapped samples
+     */
+    private static double correlationAt(double[] correlation, int lag, int n, int size) {
+        return correlation[lag >= 0 ? lag : size + lag] / (n - Math.abs(lag));
+    }
+}
@@ -0,0 +1,218 @@
+package com.torutk.spectrum.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Frequency plan, named channels or transponders, indexed by frequency.
+ *
+ * Channels are sorted by the lower frequency and indexed by an augmented interval tree laid out on the sorted array,
+ * the channel at the middle of a range being the node of the range, which keeps the max upper frequency of
+ * the channels of the range. Channels intersecting a frequency range are found by visiting only the subtrees
+ * reaching the range, in O(log n) per channel found, however wide a channel is.
+ * Channels may overlap each other. The plan is immutable, an instance can be shared by threads.
+ *
+ * Plan File Format (CSV, UTF-8, lines starting with '#' are comments):
+ * <pre>
+ *     name, lower frequency [MHz], upper frequency [MHz]
+ * </pre>
+ */
+public class FrequencyPlan {
+    private final String name;
+    private final List<Channel> channels;
+    private final double[] lowerFrequencies;
+    private final double[] maxUpperFrequencies; // max upper frequency of channels of the subtree of node i
+
+    /**
+     * Constructor with channels.
+     *
+     * @param name of the plan
+     * @param channels in any order
+     */
+    public FrequencyPlan(String name, List<Channel> channels) {
+        this.name = name;
+        List<Channel> sorted = new ArrayList<>(channels);
+        sorted.sort(Comparator.comparingDouble(Channel::getLowerFrequency));
+        this.channels = Collections.unmodifiableList(sorted);
+        lowerFrequencies = new double[sorted.size()];
+        maxUpperFrequencies = new double[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            lowerFrequencies[i] = sorted.get(i).getLowerFrequency();
+        }
+        buildTree(0, sorted.size());
+    }
+
+    /**
+     * Loads the plan from the CSV file.
+     *
+     * @param path of the plan file
+     * @return the plan named by the file name
+     * @throws IOException if the file cannot be read, or a line is malformed
+     */
+    public static FrequencyPlan load(Path path) throws IOException {
+        List<Channel> channels = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    channels.add(new Channel(fields[0].trim(),
+                            Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim())));
+                } catch (IndexOutOfBoundsException | IllegalArgumentException ex) {
+                    throw new IOException(String.format("malformed line %d of %s: %s", lineNumber, path, line), ex);
+                }
+            }
+        }
+        return new FrequencyPlan(path.getFileName().toString(), channels);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return all channels in order of the lower frequency
+     */
+    public List<Channel> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Returns channels intersecting the frequency range.
+     *
+     * @param lowerFrequency of the range [MHz]
+     * @param upperFrequency of the range [MHz]
+     * @return channels in order of the lower frequency
+     */
+    public List<Channel> query(double lowerFrequency, double upperFrequency) {
+        List<Channel> found = new ArrayList<>();
+        query(0, channels.size(), lowerFrequency, upperFrequency, found);
+        return found;
+    }
+
+    /**
+     * @param frequency [MHz]
+     * @return channels containing the frequency in order of the lower frequency
+     */
+    public List<Channel> channelsAt(double frequency) {
+        return query(frequency, frequency);
+    }
+
+    /**
+     * Calculates the power of all channels in the spectrum, by the band power index of the spectrum
+     * built in one pass of the samples.
+     *
+     * @param data spectrum
+     * @return power of each channel in order of {@link #getChannels()} [dBm], NaN if out of the spectrum
+     */
+    public double[] channelPowers(SpectrumData data) {
+        try (var stage = PerformanceMonitor.begin("channel power", data.getName())) {
+            stage.setSamples(data.size());
+            BandPowerIndex index = data.getBandPowerIndex();
+            double[] powers = new double[channels.size()];
+            for (int i = 0; i < powers.length; i++) {
+                Channel channel = channels.get(i);
+                if (channel.getUpperFrequency() <= data.getStartFrequency()
+                        || channel.getLowerFrequency() >= data.getStopFrequency()) {
+                    powers[i] = Double.NaN;
+                } else {
+                    powers[i] = index.bandPower(channel.getLowerFrequency(), channel.getUpperFrequency());
+                }
+            }
+            return powers;
+        }
+    }
+
+    /**
+     * Sets the max upper frequency of the subtree of channels [from, to) to its node, the middle of them.
+     *
+     * @return the max upper frequency of the subtree, negative infinity if empty
+     */
+    private double buildTree(int from, int to) {
+        if (from >= to) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int node = (from + to) >>> 1;
+        double maxUpper = Math.max(channels.get(node).getUpperFrequency(),
+                Math.max(buildTree(from, node), buildTree(node + 1, to)));
+        maxUpperFrequencies[node] = maxUpper;
+        return maxUpper;
+    }
+
+    /**
+     * Adds channels of the subtree [from, to) intersecting the range, in order of the lower frequency.
+     */
+    private void query(int from, int to, double lowerFrequency, double upperFrequency, List<Channel> found) {
+        if (from >= to) {
+            return;
+        }
+        int node = (from + to) >>> 1;
+        if (maxUpperFrequencies[node] < lowerFrequency) { // no channel of the subtree reaches the range
+            return;
+        }
+        query(from, node, lowerFrequency, upperFrequency, found);
+        if (lowerFrequencies[node] > upperFrequency) { // the node and channels after start above the range
+            return;
+        }
+        if (channels.get(node).getUpperFrequency() >= lowerFrequency) {
+            found.add(channels.get(node));
+        }
+        query(node + 1, to, lowerFrequency, upperFrequency, found);
+    }
+
+    /**
+     * A named frequency band of the plan.
+     */
+    public static class Channel {
+        private final String name;
+        private final double lowerFrequency;
+        private final double upperFrequency;
+
+        /**
+         * @param name of the channel
+         * @param lowerFrequency [MHz]
+         * @param upperFrequency [MHz]
+         */
+        public Channel(String name, double lowerFrequency, double upperFrequency) {
+            if (!(lowerFrequency <= upperFrequency)) {
+                throw new IllegalArgumentException("lower frequency must not be above upper frequency: " + name);
+            }
+            this.name = name;
+            this.lowerFrequency = lowerFrequency;
+            this.upperFrequency = upperFrequency;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getLowerFrequency() {
+            return lowerFrequency;
+        }
+
+        public double getUpperFrequency() {
+            return upperFrequency;
+        }
+
+        public double getCenterFrequency() {
+            return (lowerFrequency + upperFrequency) / 2;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%.4f-%.4f)", name, lowerFrequency, upperFrequency);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reader of the binary data file saved from Glowlink Model 1030/8000, by {@link SpectrumDataParser}.
+ *
+ * A file is detected by the size consistent with the number of samples in the header,
+ * since the format has no magic number. A *.dat file may be longer, e.g. padded or with a trailer,
+ * whose trailing bytes are ignored by the parser.
+ */
+class GlowlinkDataReader implements SpectrumDataReader {
+    private static final int HEADER_BYTES = 32;
+
+    @Override
+    public String getFormatName() {
+        return "Glowlink";
+    }
+
+    @Override
+    public String[] getFilePatterns() {
+        return new String[]{"*.dat"};
+    }
+
+    @Override
+    public boolean canRead(Path path, ByteBuffer head) throws IOException {
+        if (head.remaining() < HEADER_BYTES) {
+            return false;
+        }
+        long numSamples = head.order(ByteOrder.LITTLE_ENDIAN).getLong(0);
+        if (numSamples <= 0 || numSamples > Integer.MAX_VALUE) {
+            return false;
+        }
+        long size = Files.size(path);
+        long expectedSize = HEADER_BYTES + numSamples * Integer.BYTES;
+        return size == expectedSize
+                || (size > expectedSize && path.getFileName().toString().toLowerCase().endsWith(".dat"));
+    }
+
+    @Override
+    public SpectrumData read(Path path) throws IOException {
+        return SpectrumDataParser.parse(path);
+    }
+
+    @Override
+    public SpectrumData read(Path path, double lowerFrequency, double upperFrequency) throws IOException {
+        return SpectrumDataParser.parse(path, lowerFrequency, upperFrequency);
+    }
+}
@@ -0,0 +1,129 @@
+package com.torutk.spectrum.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Measures the per-sample kernels of {@link SpectrumKernels} by the number of threads.
+ *
+ * Each kernel is run in a fork/join pool of each parallelism, after warming up, and the median time of rounds is
+ * printed as CSV with the speedup to the parallelism 1.
+ * Traces are random codes, and the detrend spectrum is on a shifted grid not to take the same grid path.
+ */
+public class KernelBenchmark {
+    private static final int WARMUP_ROUNDS = 10;
+
+    private int numSamples = 2_000_000;
+    private int rounds = 20;
+    private int[] parallelisms;
+
+    private KernelBenchmark() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        var benchmark = new KernelBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            if ("-s".equals(args[i])) {
+                benchmark.numSamples = Integer.parseInt(args[++i]);
+            } else if ("-r".equals(args[i])) {
+                benchmark.rounds = Integer.parseInt(args[++i]);
+            } else if ("-p".equals(args[i])) {
+                benchmark.parallelisms = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (benchmark.parallelisms == null) {
+            benchmark.parallelisms = defaultParallelisms(Runtime.getRuntime().availableProcessors());
+        }
+        benchmark.run();
+    }
+
+    private static int[] defaultParallelisms(int processors) {
+        List<Integer> list = new ArrayList<>();
+        for (int p = 1; p < processors; p *= 2) {
+            list.add(p);
+        }
+        list.add(processors);
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    void run() throws InterruptedException, ExecutionException {
+        var random = new SplittableRandom(0);
+        byte[] codes = new byte[numSamples];
+        byte[] detrendCodes = new byte[numSamples];
+        for (int i = 0; i < numSamples; i++) {
+            codes[i] = (byte) random.nextInt(256);
+            detrendCodes[i] = (byte) random.nextInt(256);
+        }
+        var data = new SpectrumData("data", 10750, 11750, -30f, 5f, codes);
+        var detrend = new SpectrumData("detrend", 10749.5, 11750.5, -30f, 5f, detrendCodes);
+        float[] powers = data.getPowers();
+        Map<String, Supplier<Object>> kernels = new LinkedHashMap<>();
+        kernels.put("decode", () -> SpectrumKernels.decode(codes, data.getReferenceLevel(), data.getScale()));
+        kernels.put("frequencies", () -> SpectrumKernels.frequencies(
+                data.getStartFrequency(), data.getStopFrequency(), numSamples));
+        kernels.put("detrend", () -> SpectrumKernels.detrend(data, detrend));
+        kernels.put("histogram", () -> SpectrumKernels.histogram(codes));
+        kernels.put("sumMilliwatt", () -> SpectrumKernels.sumMilliwatt(powers));
+
+        System.out.printf("# samples=%d rounds=%d processors=%d%n",
+                numSamples, rounds, Runtime.getRuntime().availableProcessors());
+        System.out.println("Kernel, Parallelism, Median[ms], Speedup");
+        for (Map.Entry<String, Supplier<Object>> kernel : kernels.entrySet()) {
+            double baseline = Double.NaN;
+            for (int parallelism : parallelisms) {
+                double median = measure(kernel.getValue(), parallelism);
+                if (Double.isNaN(baseline)) {
+                    baseline = median;
+                }
+                System.out.printf("%s, %d, %.3f, %.2f%n", kernel.getKey(), parallelism, median, baseline / median);
+            }
+        }
+    }
+
+    /**
+     * @return median time of rounds [ms]
+     */
+    private double measure(Supplier<Object> kernel, int parallelism)
+            throws InterruptedException, ExecutionException {
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> {
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    kernel.get();
+                }
+                double[] times = new double[rounds];
+                for (int i = 0; i < rounds; i++) {
+                    long start = System.nanoTime();
+                    kernel.get();
+                    times[i] = (System.nanoTime() - start) / 1e6;
+                }
+                Arrays.sort(times);
+                return times[rounds / 2];
+            }).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void printUsageAndExit() {
+        System.out.println("Command line usage: [-s <samples>] [-r <rounds>] [-p <parallelism>,...]");
+        System.out.println("\t-s samples: the number of samples of a trace, default 2000000");
+        System.out.println("\t-r rounds: the number of measured rounds of each kernel, default 20");
+        System.out.println("\t-p parallelism: comma separated numbers of threads, default 1,2,4,... up to processors");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.torutk.spectrum.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight latency histogram, lock free and safe to record from any thread.
+ *
+ * Latencies are counted in buckets of power of two nanoseconds,
+ * so a percentile is accurate within a factor of two.
+ */
+public class LatencyHistogram {
+    private static final int NUM_BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    /**
+     * Constructor with name.
+     *
+     * @param name of measured stage
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record one latency.
+     *
+     * @param nanos latency [ns]
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        count.increment();
+        sumNanos.add(value);
+        maxNanos.accumulate(value);
+        int bucket = value == 0 ? 0 : NUM_BUCKETS - 1 - Long.numberOfLeadingZeros(value); // floor(log2(value))
+        buckets.incrementAndGet(bucket);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return mean latency [ms], NaN if nothing recorded
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? Double.NaN : sumNanos.sum() / 1e6 / n;
+    }
+
+    /**
+     * @return max latency [ms]
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the upper bound of the bucket which contains the specified percentile.
+     *
+     * @param percentile between 0 and 100
+     * @return latency [ms], NaN if nothing recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100);
+        long accumulated = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            accumulated += buckets.get(i);
+            if (accumulated >= rank) {
+                return Math.min(Math.pow(2, i + 1), maxNanos.get()) / 1e6;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d mean=%.3fms p50<=%.3fms p99<=%.3fms max=%.3fms",
+                name, getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99), getMaxMillis());
+    }
+}
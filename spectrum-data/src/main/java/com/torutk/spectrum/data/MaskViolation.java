@@ -0,0 +1,95 @@
+package com.torutk.spectrum.data;
+
+import java.time.Instant;
+
+/**
+ * A contiguous frequency range of a spectrum exceeding the limit of {@link SpectrumMask}.
+ */
+public class MaskViolation {
+    private final String spectrumName;
+    private final Instant timestamp;
+    private final double lowerFrequency;
+    private final double upperFrequency;
+    private final double peakFrequency;
+    private final float excess;
+
+    MaskViolation(
+            String spectrumName, Instant timestamp, double lowerFrequency, double upperFrequency,
+            double peakFrequency, float excess
+    ) {
+        this.spectrumName = spectrumName;
+        this.timestamp = timestamp;
+        this.lowerFrequency = lowerFrequency;
+        this.upperFrequency = upperFrequency;
+        this.peakFrequency = peakFrequency;
+        this.excess = excess;
+    }
+
+    /**
+     * @return the header line of {@link #toCsv()}
+     */
+    public static String csvHeader() {
+        return "Name, Timestamp, LowerFrequency[MHz], UpperFrequency[MHz], PeakFrequency[MHz], Excess[dB]";
+    }
+
+    /**
+     * @return this violation as one CSV line
+     */
+    public String toCsv() {
+        return String.format("%s, %s, %f, %f, %f, %f",
+                spectrumName, timestamp, lowerFrequency, upperFrequency, peakFrequency, excess);
+    }
+
+    /**
+     * @return name of the spectrum violating the mask
+     */
+    public String getSpectrumName() {
+        return spectrumName;
+    }
+
+    /**
+     * @return time of the spectrum swept
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return lower frequency of the violating range [MHz]
+     */
+    public double getLowerFrequency() {
+        return lowerFrequency;
+    }
+
+    /**
+     * @return upper frequency of the violating range [MHz]
+     */
+    public double getUpperFrequency() {
+        return upperFrequency;
+    }
+
+    /**
+     * @return frequency of the max excess [MHz]
+     */
+    public double getPeakFrequency() {
+        return peakFrequency;
+    }
+
+    /**
+     * @return max power above the limit in the range [dB]
+     */
+    public float getExcess() {
+        return excess;
+    }
+
+    @Override
+    public String toString() {
+        return "MaskViolation{" +
+                "spectrumName='" + spectrumName + '\'' +
+                ", timestamp=" + timestamp +
+                ", lowerFrequency=" + lowerFrequency +
+                ", upperFrequency=" + upperFrequency +
+                ", excess=" + excess +
+                '}';
+    }
+}
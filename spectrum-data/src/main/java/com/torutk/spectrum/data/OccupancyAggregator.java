@@ -0,0 +1,309 @@
+package com.torutk.spectrum.data;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Streaming statistics of sweeps in each frequency bin, occupancy (duty cycle above a threshold),
+ * mean, variance and max of powers, in constant memory regardless of the number of sweeps.
+ *
+ * Each sample of a sweep is counted into the 256-code histogram of its bin by the raw power byte,
+ * re-encoded by a lookup table only if the sweep is encoded by another reference level and scale.
+ * The mean and the variance of each bin are accumulated by Welford's method, the samples of a sweep in a bin
+ * are summed up as a batch and merged into the running mean and the sum of squared differences,
+ * so that they stay accurate over weeks of sweeps. Aggregators of the same bins made by workers in parallel
+ * are merged by {@link #merge(OccupancyAggregator)} in the same way.
+ *
+ * The occupancy is counted from the histogram, so that it can be calculated for any threshold after aggregation.
+ * An aggregator is not thread safe, each worker should have its own one.
+ */
+public class OccupancyAggregator {
+    private static final int CODES = 256;
+
+    private final double lowerFrequency;
+    private final double upperFrequency;
+    private final int bins;
+    private final float referenceLevel;
+    private final float scale;
+    private final long[] histograms; // CODES per bin
+    private final long[] counts;
+    private final double[] means; // [dBm]
+    private final double[] squaredDifferences; // sum of squared differences from the mean [dB^2]
+    private final int[] minCodes; // max power of bin, as the encoded power is reversed
+    private long sweeps;
+
+    /**
+     * Constructor with the bins and the encoding of histograms.
+     *
+     * @param lowerFrequency lower edge of the first bin [MHz]
+     * @param upperFrequency upper edge of the last bin [MHz]
+     * @param bins the number of bins
+     * @param referenceLevel of histograms, top of the code 0 [dBm]
+     * @param scale of histograms, 10 divisions to the code 255 [dB/DIV]
+     */
+    public OccupancyAggregator(
+            double lowerFrequency, double upperFrequency, int bins, float referenceLevel, float scale
+    ) {
+        if (bins <= 0 || upperFrequency <= lowerFrequency) {
+            throw new IllegalArgumentException(String.format(
+                    "invalid bins %d of %f-%fMHz", bins, lowerFrequency, upperFrequency));
+        }
+        this.lowerFrequency = lowerFrequency;
+        this.upperFrequency = upperFrequency;
+        this.bins = bins;
+        this.referenceLevel = referenceLevel;
+        this.scale = scale;
+        histograms = new long[bins * CODES];
+        counts = new long[bins];
+        means = new double[bins];
+        squaredDifferences = new double[bins];
+        minCodes = new int[bins];
+        Arrays.fill(minCodes, CODES);
+    }
+
+    /**
+     * Constructor of an empty aggregator of the same bins and encoding, e.g. for another worker.
+     *
+     * @param other aggregator to be copied the bins and the encoding
+     */
+    public OccupancyAggregator(OccupancyAggregator other) {
+        this(other.lowerFrequency, other.upperFrequency, other.bins, other.referenceLevel, other.scale);
+    }
+
+    /**
+     * Accumulates the samples of the sweep in the bins, samples out of the bins are ignored.
+     * A sample belongs to the bin containing its center frequency.
+     *
+     * @param data sweep to be added
+     */
+    public void add(SpectrumData data) {
+        byte[] codes = data.getPowersAsBytes();
+        int[] codeMap = new int[CODES]; // code of the sweep to code of histograms
+        double[] powerOfCode = new double[CODES];
+        for (int code = 0; code < CODES; code++) {
+            float power = data.decode((byte) code);
+            powerOfCode[code] = power;
+            codeMap[code] = data.getReferenceLevel() == referenceLevel && data.getScale() == scale
+                    ? code : Byte.toUnsignedInt(SpectrumData.encode(power, referenceLevel, scale));
+        }
+        double samplingRate = data.getSamplingRate();
+        double binWidth = (upperFrequency - lowerFrequency) / bins;
+        for (int bin = 0; bin < bins; bin++) {
+            int from = firstSampleOf(lowerFrequency + binWidth * bin, data, samplingRate);
+            int to = firstSampleOf(lowerFrequency + binWidth * (bin + 1), data, samplingRate);
+            if (from >= to) {
+                continue;
+            }
+            int offset = bin * CODES;
+            double sum = 0;
+            int minCode = CODES;
+            for (int i = from; i < to; i++) {
+                int code = codes[i] & 0xff;
+                histograms[offset + codeMap[code]]++;
+                sum += powerOfCode[code];
+                minCode = Math.min(minCode, code);
+            }
+            int n = to - from;
+            double mean = sum / n;
+            double squared = 0;
+            for (int i = from; i < to; i++) {
+                double difference = powerOfCode[codes[i] & 0xff] - mean;
+                squared += difference * difference;
+            }
+            accumulate(bin, n, mean, squared);
+            minCodes[bin] = Math.min(minCodes[bin], codeMap[minCode]);
+        }
+        sweeps++;
+    }
+
+    /**
+     * @return index of the first sample whose center frequency is at or above the frequency, clamped to the samples
+     */
+    private static int firstSampleOf(double frequency, SpectrumData data, double samplingRate) {
+        double index = Math.ceil((frequency - data.getStartFrequency()) / samplingRate - 0.5);
+        return (int) Math.max(0, Math.min(data.size(), index));
+    }
+
+    /**
+     * Merges a batch of samples into the running mean and sum of squared differences of the bin.
+     */
+    private void accumulate(int bin, long n, double mean, double squared) {
+        long total = counts[bin] + n;
+        double delta = mean - means[bin];
+        means[bin] += delta * n / total;
+        squaredDifferences[bin] += squared + delta * delta * counts[bin] * n / total;
+        counts[bin] = total;
+    }
+
+    /**
+     * Merges the partial aggregate of another worker into this aggregator.
+     *
+     * @param other aggregator of the same bins and encoding
+     * @throws IllegalArgumentException if the bins or the encoding are different
+     */
+    public void merge(OccupancyAggregator other) {
+        if (other.lowerFrequency != lowerFrequency || other.upperFrequency != upperFrequency
+                || other.bins != bins || other.referenceLevel != referenceLevel || other.scale != scale) {
+            throw new IllegalArgumentException("cannot merge aggregators of different bins or encoding");
+        }
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] += other.histograms[i];
+        }
+        for (int bin = 0; bin < bins; bin++) {
+            if (other.counts[bin] > 0) {
+                accumulate(bin, other.counts[bin], other.means[bin], other.squaredDifferences[bin]);
+                minCodes[bin] = Math.min(minCodes[bin], other.minCodes[bin]);
+            }
+        }
+        sweeps += other.sweeps;
+    }
+
+    /**
+     * @return the number of sweeps added, including merged ones
+     */
+    public long getSweepCount() {
+        return sweeps;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    /**
+     * @param bin index
+     * @return center frequency of the bin [MHz]
+     */
+    public double getFrequencyAt(int bin) {
+        return lowerFrequency + (upperFrequency - lowerFrequency) * (bin + 0.5) / bins;
+    }
+
+    /**
+     * @param bin index
+     * @return the number of samples counted in the bin
+     */
+    public long getCount(int bin) {
+        return counts[bin];
+    }
+
+    /**
+     * @param bin index
+     * @return mean power of the bin [dBm], NaN if no sample
+     */
+    public double getMean(int bin) {
+        return counts[bin] > 0 ? means[bin] : Double.NaN;
+    }
+
+    /**
+     * @param bin index
+     * @return population variance of powers of the bin [dB^2], NaN if no sample
+     */
+    public double getVariance(int bin) {
+        return counts[bin] > 0 ? squaredDifferences[bin] / counts[bin] : Double.NaN;
+    }
+
+    /**
+     * @param bin index
+     * @return max power of the bin [dBm], NaN if no sample
+     */
+    public double getMax(int bin) {
+        return counts[bin] > 0 ? decode(minCodes[bin]) : Double.NaN;
+    }
+
+    /**
+     * Returns the occupancy of the bin, the ratio of samples at or above the threshold.
+     * The threshold is rounded to the code of histograms.
+     *
+     * @param bin index
+     * @param threshold power [dBm]
+     * @return occupancy in 0-1, NaN if no sample
+     */
+    public double getOccupancy(int bin, double threshold) {
+        if (counts[bin] == 0) {
+            return Double.NaN;
+        }
+        int thresholdCode = Byte.toUnsignedInt(SpectrumData.encode(threshold, referenceLevel, scale));
+        long above = 0;
+        for (int code = 0; code <= thresholdCode; code++) {
+            above += histograms[bin * CODES + code];
+        }
+        return (double) above / counts[bin];
+    }
+
+    private float decode(int code) {
+        return referenceLevel - scale * 10 * code / 255;
+    }
+
+    /**
+     * Makes the trace of mean powers as a spectrum, to be loaded into the viewer.
+     * Bins without sample are at the bottom of the scale.
+     *
+     * @param name of the spectrum
+     * @return the spectrum of one sample per bin
+     */
+    public SpectrumData toMeanSpectrum(String name) {
+        float[] powers = new float[bins];
+        for (int bin = 0; bin < bins; bin++) {
+            powers[bin] = counts[bin] > 0 ? (float) means[bin] : decode(CODES - 1);
+        }
+        return new SpectrumData(name, lowerFrequency, upperFrequency, referenceLevel, scale,
+                SpectrumKernels.encode(powers, referenceLevel, scale));
+    }
+
+    /**
+     * Makes the trace of max powers as a spectrum, to be loaded into the viewer.
+     * Bins without sample are at the bottom of the scale.
+     *
+     * @param name of the spectrum
+     * @return the spectrum of one sample per bin
+     */
+    public SpectrumData toMaxSpectrum(String name) {
+        byte[] codes = new byte[bins];
+        for (int bin = 0; bin < bins; bin++) {
+            codes[bin] = (byte) Math.min(minCodes[bin], CODES - 1);
+        }
+        return new SpectrumData(name, lowerFrequency, upperFrequency, referenceLevel, scale, codes);
+    }
+
+    /**
+     * Makes the trace of occupancy as a spectrum, to be loaded into the viewer.
+     * The occupancy [%] is stored as the power with reference level 100 and scale 10,
+     * so that the chart shows 0-100% on the power axis. Bins without sample are 0%.
+     *
+     * @param name of the spectrum
+     * @param threshold power [dBm]
+     * @return the spectrum of one sample per bin
+     */
+    public SpectrumData toOccupancySpectrum(String name, double threshold) {
+        float[] percents = new float[bins];
+        for (int bin = 0; bin < bins; bin++) {
+            percents[bin] = counts[bin] > 0 ? (float) (getOccupancy(bin, threshold) * 100) : 0;
+        }
+        return new SpectrumData(name, lowerFrequency, upperFrequency, 100f, 10f,
+                SpectrumKernels.encode(percents, 100f, 10f));
+    }
+
+    /**
+     * Renders the histograms as a heatmap, a column per bin and a row per code from the reference level at the top,
+     * colored from blue of few samples to red of the most samples in log scale. Codes never counted are black.
+     *
+     * @return image of bins x 256 pixels
+     */
+    public BufferedImage renderHeatmap() {
+        var image = new BufferedImage(bins, CODES, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        long max = Arrays.stream(histograms).max().orElse(0);
+        double logScale = 1 / Math.log1p(max);
+        for (int bin = 0; bin < bins; bin++) {
+            for (int code = 0; code < CODES; code++) {
+                long count = histograms[bin * CODES + code];
+                if (count > 0) {
+                    float ratio = (float) (Math.log1p(count) * logScale);
+                    pixels[code * bins + bin] = Color.HSBtoRGB(2f / 3 * (1 - ratio), 1, 1) & 0xffffff;
+                }
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,205 @@
+package com.torutk.spectrum.data;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Spectrum occupancy over an archive of sweeps, in one pass and constant memory by {@link OccupancyAggregator}.
+ *
+ * Workers read files in parallel, each into its own aggregator, and the partial aggregates are merged at the end.
+ * Only the samples in the frequency range are read if the range is specified.
+ * The results are written into the output directory.
+ * <ul>
+ *     <li>occupancy.dat, mean.dat, max.dat: traces of the bins, to be opened by the viewer</li>
+ *     <li>occupancy.csv: statistics of each bin</li>
+ *     <li>heatmap.png: histograms of powers of each bin</li>
+ * </ul>
+ */
+public class OccupancyAnalyzer {
+    private static final Logger logger = Logger.getLogger(OccupancyAnalyzer.class.getName());
+
+    private final List<String> globs = new ArrayList<>();
+    private Path outDirectory;
+    private int bins = 1000;
+    private double threshold = Double.NaN;
+    private double lowerFrequency = Double.NaN;
+    private double upperFrequency = Double.NaN;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private OccupancyAnalyzer() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        var analyzer = new OccupancyAnalyzer();
+        for (int i = 0; i < args.length; i++) {
+            if ("-i".equals(args[i])) {
+                analyzer.globs.add(args[++i]);
+            } else if ("-o".equals(args[i])) {
+                analyzer.outDirectory = Paths.get(args[++i]);
+            } else if ("-b".equals(args[i])) {
+                analyzer.bins = Integer.parseInt(args[++i]);
+            } else if ("-l".equals(args[i])) {
+                analyzer.threshold = Double.parseDouble(args[++i]);
+            } else if ("-s".equals(args[i])) {
+                analyzer.lowerFrequency = Double.parseDouble(args[++i]);
+            } else if ("-e".equals(args[i])) {
+                analyzer.upperFrequency = Double.parseDouble(args[++i]);
+            } else if ("-t".equals(args[i])) {
+                analyzer.threads = Integer.parseInt(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (analyzer.globs.isEmpty() || analyzer.outDirectory == null || Double.isNaN(analyzer.threshold)) {
+            System.err.println("input files, output directory and threshold must be specified.");
+            printUsageAndExit();
+        }
+        if (Double.isNaN(analyzer.lowerFrequency) != Double.isNaN(analyzer.upperFrequency)) {
+            System.err.println("both start and stop frequency must be specified.");
+            printUsageAndExit();
+        }
+        int failures = analyzer.run();
+        if (failures > 0) {
+            System.err.printf("%d file(s) failed to aggregate.%n", failures);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Aggregate all files matched to the input globs, and write the results.
+     *
+     * @return the number of files failed to aggregate
+     * @throws IOException if input files cannot be searched, the first file cannot be read, or results cannot be
+     * written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    int run() throws IOException, InterruptedException {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String glob : globs) {
+            paths.addAll(FileFinder.findAll(glob));
+        }
+        if (paths.isEmpty()) {
+            throw new IOException("no file matched to " + globs);
+        }
+        Files.createDirectories(outDirectory);
+        logger.info(() -> String.format("%d file(s) to be aggregated into %d bins with %d thread(s)",
+                paths.size(), bins, threads));
+        OccupancyAggregator total = createAggregator(paths.iterator().next());
+        Iterator<Path> queue = paths.iterator();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<OccupancyAggregator>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> aggregate(queue, new OccupancyAggregator(total), failures)));
+            }
+            for (Future<OccupancyAggregator> future : futures) {
+                try {
+                    total.merge(future.get());
+                } catch (ExecutionException ex) {
+                    throw new IOException("worker failed", ex.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info(() -> String.format("%d sweep(s) aggregated", total.getSweepCount()));
+        write(total);
+        PerformanceMonitor.logSummary();
+        return failures.get();
+    }
+
+    /**
+     * Creates the aggregator of the bins in the frequency range, or the range of the first file if not specified,
+     * whose histograms are encoded by the reference level and scale of the first file.
+     */
+    private OccupancyAggregator createAggregator(Path first) throws IOException {
+        SpectrumData data = read(first);
+        if (Double.isNaN(lowerFrequency)) {
+            lowerFrequency = data.getStartFrequency();
+            upperFrequency = data.getStopFrequency();
+        }
+        return new OccupancyAggregator(lowerFrequency, upperFrequency, bins, data.getReferenceLevel(), data.getScale());
+    }
+
+    private SpectrumData read(Path path) throws IOException {
+        return Double.isNaN(lowerFrequency)
+                ? SpectrumDataReaders.read(path)
+                : SpectrumDataReaders.read(path, lowerFrequency, upperFrequency);
+    }
+
+    /**
+     * Adds files taken from the shared queue till empty, into the aggregator of this worker.
+     */
+    private OccupancyAggregator aggregate(
+            Iterator<Path> queue, OccupancyAggregator aggregator, AtomicInteger failures
+    ) {
+        while (true) {
+            Path path;
+            synchronized (queue) {
+                if (!queue.hasNext()) {
+                    return aggregator;
+                }
+                path = queue.next();
+            }
+            try (var stage = PerformanceMonitor.begin("aggregate", path.toString())) {
+                SpectrumData data = read(path);
+                aggregator.add(data);
+                stage.setSamples(data.size());
+            } catch (IOException e) {
+                logger.warning("could not aggregate file: " + e);
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    private void write(OccupancyAggregator aggregator) throws IOException {
+        SpectrumDataWriter.write(outDirectory.resolve("occupancy.dat"),
+                aggregator.toOccupancySpectrum("occupancy", threshold));
+        SpectrumDataWriter.write(outDirectory.resolve("mean.dat"), aggregator.toMeanSpectrum("mean"));
+        SpectrumDataWriter.write(outDirectory.resolve("max.dat"), aggregator.toMaxSpectrum("max"));
+        try (var out = new PrintStream(Files.newOutputStream(outDirectory.resolve("occupancy.csv")), false, "UTF-8")) {
+            out.println("Frequency[MHz], Samples, Mean[dBm], StdDev[dB], Max[dBm], Occupancy[%]");
+            for (int bin = 0; bin < aggregator.getBins(); bin++) {
+                out.println(String.format("%f, %d, %f, %f, %f, %f", aggregator.getFrequencyAt(bin),
+                        aggregator.getCount(bin), aggregator.getMean(bin), Math.sqrt(aggregator.getVariance(bin)),
+                        aggregator.getMax(bin), aggregator.getOccupancy(bin, threshold) * 100));
+            }
+        }
+        ImageIO.write(aggregator.renderHeatmap(), "png", outDirectory.resolve("heatmap.png").toFile());
+    }
+
+    static void printUsageAndExit() {
+        System.out.println("Command line usage: -i <glob> [-i <glob> ...] -o <directory> -l <threshold> [-b <bins>] [-s <start> -e <stop>] [-t <threads>]");
+        System.out.println("\tglob: spectrum files of any readable format, e.g. archive/**/*.dat");
+        System.out.println("\tdirectory: occupancy, mean and max traces, statistics and heatmap are written in this directory");
+        System.out.println("\tthreshold: power of a sample to be occupied [dBm]");
+        System.out.println("\tbins: number of frequency bins (default: 1000)");
+        System.out.println("\tstart, stop: frequency range of bins [MHz] (default: range of the first file)");
+        System.out.println("\tthreads: number of worker threads (default: number of processors)");
+        System.exit(1);
+    }
+}
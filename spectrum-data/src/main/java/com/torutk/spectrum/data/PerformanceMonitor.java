@@ -0,0 +1,140 @@
+package com.torutk.spectrum.data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Instrumentation of hot paths by JFR events and latency histograms.
+ *
+ * Usage:
+ * <pre>
+ *     try (var stage = PerformanceMonitor.begin("parse", path.toString())) {
+ *         ...
+ *         stage.setSamples(numData);
+ *     }
+ * </pre>
+ * Each stage emits {@link StageEvent} to the flight recorder when recording (e.g. {@code -XX:StartFlightRecording}),
+ * and always records its latency to the histogram named by the stage.
+ */
+public class PerformanceMonitor {
+    private static final Logger logger = Logger.getLogger(PerformanceMonitor.class.getName());
+    private static final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private PerformanceMonitor() {
+    }
+
+    /**
+     * Begin to measure the specified stage.
+     *
+     * @param stage name of processing stage, e.g. "parse"
+     * @param subject what is processed, e.g. file name
+     * @return the measuring stage to be closed at the end
+     */
+    public static Stage begin(String stage, String subject) {
+        return new Stage(stage, subject);
+    }
+
+    /**
+     * Returns the histogram of the specified stage, created if absent.
+     *
+     * @param stage name of processing stage
+     * @return the histogram
+     */
+    public static LatencyHistogram histogram(String stage) {
+        return histograms.computeIfAbsent(stage, LatencyHistogram::new);
+    }
+
+    /**
+     * @return histograms of all stages measured, sorted by name
+     */
+    public static Collection<LatencyHistogram> histograms() {
+        List<LatencyHistogram> list = new ArrayList<>(histograms.values());
+        list.sort(Comparator.comparing(LatencyHistogram::getName));
+        return list;
+    }
+
+    /**
+     * Log the summary of all histograms.
+     */
+    public static void logSummary() {
+        if (logger.isLoggable(Level.INFO)) {
+            histograms().forEach(histogram -> logger.info(histogram.toString()));
+        }
+    }
+
+    /**
+     * A measuring stage, not thread safe.
+     */
+    public static class Stage implements AutoCloseable {
+        private final StageEvent event = new StageEvent();
+        private final long startNanos;
+        private long elapsedNanos = -1;
+
+        private Stage(String stage, String subject) {
+            event.stage = stage;
+            event.subject = subject;
+            event.begin();
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * @param samples number of samples processed in this stage
+         */
+        public void setSamples(long samples) {
+            event.samples = samples;
+        }
+
+        /**
+         * @return elapsed time of this stage [ns], valid after closed
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public void close() {
+            if (elapsedNanos >= 0) {
+                return;
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+            histogram(event.stage).record(elapsedNanos);
+        }
+    }
+
+    /**
+     * JFR event of a processing stage.
+     */
+    @Name("com.torutk.spectrum.Stage")
+    @Label("Spectrum Processing Stage")
+    @Category("Spectrum File Viewer")
+    @Description("Processing stage of spectrum data, e.g. parse, decode, decimate, export")
+    public static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Subject")
+        String subject;
+
+        @Label("Samples")
+        long samples;
+
+        StageEvent() {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.torutk.spectrum.data;
+
+/**
+ * Accumulator of hits of many sweeps per pixel, to draw them as a persistence (density) display
+ * like a real-time spectrum analyzer.
+ *
+ * Each sweep is drawn as a trace into the grid of columns (frequency) and rows (power), by the envelope of
+ * the sweep in each column joined to the previous column, and the hit count of each cell on the trace
+ * is incremented. Adding a sweep costs the envelope of its samples and O(columns) to draw, memory is constant
+ * regardless of the number of sweeps.
+ *
+ * With decay, older sweeps fade out by the decay factor per sweep. Instead of multiplying all cells by the factor
+ * at each sweep, the weight of a hit grows by the inverse of the factor, and cells are rescaled only when
+ * the weight exceeds a limit, so the decay also costs O(columns) per sweep amortized.
+ * Counts are saturated at the max of int.
+ */
+public class PersistenceGrid {
+    private static final int HIT = 256; // weight of a hit without decay, fixed point not to lose a decayed hit
+    private static final double RESCALE_WEIGHT = 65536;
+
+    private final double lowerFrequency;
+    private final double upperFrequency;
+    private final double bottomPower;
+    private final double topPower;
+    private final int columns;
+    private final int rows;
+    private final int[] hits; // row major, row 0 is the top power
+    private double decay = 1;
+    private double weight = HIT;
+    private int sweeps;
+
+    /**
+     * Constructor with the range and the size of the grid.
+     *
+     * @param lowerFrequency left edge of the grid [MHz]
+     * @param upperFrequency right edge of the grid [MHz]
+     * @param bottomPower bottom edge of the grid [dBm]
+     * @param topPower top edge of the grid [dBm]
+     * @param columns the number of columns, e.g. width of the plot in pixels
+     * @param rows the number of rows, e.g. height of the plot in pixels
+     */
+    public PersistenceGrid(
+            double lowerFrequency, double upperFrequency, double bottomPower, double topPower, int columns, int rows
+    ) {
+        this.lowerFrequency = lowerFrequency;
+        this.upperFrequency = upperFrequency;
+        this.bottomPower = bottomPower;
+        this.topPower = topPower;
+        this.columns = columns;
+        this.rows = rows;
+        hits = new int[columns * rows];
+    }
+
+    /**
+     * Sets the decay of older sweeps.
+     *
+     * @param decay factor multiplied to hits of previous sweeps when a sweep is added, 1 is infinite persistence
+     */
+    public synchronized void setDecay(double decay) {
+        if (decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("decay must be in (0, 1]: " + decay);
+        }
+        this.decay = decay;
+    }
+
+    /**
+     * Draws the sweep into the grid. May be called by multiple threads.
+     *
+     * @param data sweep to be added
+     */
+    public void add(SpectrumData data) {
+        var envelope = PowerEnvelope.of(data, lowerFrequency, upperFrequency, columns);
+        synchronized (this) {
+            if (decay < 1) {
+                weight /= decay;
+                if (weight > RESCALE_WEIGHT) {
+                    rescale();
+                }
+            }
+            int hit = (int) Math.round(weight);
+            int previousTop = -1;
+            int previousBottom = -1;
+            for (int column = 0; column < columns; column++) {
+                float max = envelope.getMaxPower(column);
+                float min = envelope.getMinPower(column);
+                if (Float.isNaN(max)) {
+                    previousTop = -1;
+                    continue;
+                }
+                int top = rowOf(max);
+                int bottom = rowOf(min);
+                if (previousTop >= 0) { // join to the previous column
+                    top = Math.min(top, previousBottom);
+                    bottom = Math.max(bottom, previousTop);
+                }
+                previousTop = rowOf(max);
+                previousBottom = rowOf(min);
+                for (int row = Math.max(0, top); row <= Math.min(rows - 1, bottom); row++) {
+                    int index = row * columns + column;
+                    hits[index] = hits[index] > Integer.MAX_VALUE - hit ? Integer.MAX_VALUE : hits[index] + hit;
+                }
+            }
+            sweeps++;
+        }
+    }
+
+    /**
+     * Returns the row of the power, may be out of the grid.
+     */
+    private int rowOf(float power) {
+        return (int) Math.floor((topPower - power) / (topPower - bottomPower) * rows);
+    }
+
+    /**
+     * Scales down all cells to the hit weight without decay.
+     */
+    private void rescale() {
+        double factor = HIT / weight;
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = (int) Math.round(hits[i] * factor);
+        }
+        weight = HIT;
+    }
+
+    /**
+     * Renders the grid into pixels by the palette in log scale of hits to the max hits.
+     *
+     * @param argb pixels of columns x rows in row major, 0 (transparent) for a cell never hit
+     * @param palette colors from the fewest hits to the most hits
+     */
+    public synchronized void render(int[] argb, int[] palette) {
+        int max = 0;
+        for (int count : hits) {
+            max = Math.max(max, count);
+        }
+        double scale = (palette.length - 1) / Math.log1p(max);
+        for (int i = 0; i < hits.length; i++) {
+            argb[i] = hits[i] == 0 ? 0 : palette[(int) (Math.log1p(hits[i]) * scale)];
+        }
+    }
+
+    /**
+     * @return the number of sweeps added
+     */
+    public synchronized int getSweepCount() {
+        return sweeps;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
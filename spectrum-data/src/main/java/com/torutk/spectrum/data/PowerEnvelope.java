@@ -0,0 +1,108 @@
+package com.torutk.spectrum.data;
+
+/**
+ * Min and max powers of a spectrum in each column of a frequency range, to draw the spectrum
+ * in the number of pixels instead of the number of samples.
+ *
+ * The envelope is made on the encoded powers without decoding each sample.
+ */
+public class PowerEnvelope {
+    private final String name;
+    private final double lowerFrequency;
+    private final double upperFrequency;
+    private final float[] minPowers;
+    private final float[] maxPowers;
+
+    private PowerEnvelope(
+            String name, double lowerFrequency, double upperFrequency, float[] minPowers, float[] maxPowers
+    ) {
+        this.name = name;
+        this.lowerFrequency = lowerFrequency;
+        this.upperFrequency = upperFrequency;
+        this.minPowers = minPowers;
+        this.maxPowers = maxPowers;
+    }
+
+    /**
+     * Makes the envelope of the spectrum in the frequency range.
+     * A column narrower than a sample has the power of the sample at the column,
+     * a column out of the spectrum has NaN powers.
+     *
+     * @param data spectrum
+     * @param lowerFrequency of the range [MHz]
+     * @param upperFrequency of the range [MHz]
+     * @param columns the number of columns in the range, e.g. width of the display in pixels
+     * @return the envelope
+     */
+    public static PowerEnvelope of(SpectrumData data, double lowerFrequency, double upperFrequency, int columns) {
+        byte[] codes = data.getPowersAsBytes();
+        float[] minPowers = new float[columns];
+        float[] maxPowers = new float[columns];
+        double columnWidth = (upperFrequency - lowerFrequency) / columns;
+        double samplingRate = data.getSamplingRate();
+        for (int c = 0; c < columns; c++) {
+            double from = (lowerFrequency + columnWidth * c - data.getStartFrequency()) / samplingRate;
+            double to = (lowerFrequency + columnWidth * (c + 1) - data.getStartFrequency()) / samplingRate;
+            int fromIndex = Math.max(0, (int) Math.floor(from));
+            int toIndex = Math.min(codes.length, Math.max(fromIndex + 1, (int) Math.ceil(to))); // exclusive
+            if (to <= 0 || fromIndex >= codes.length) {
+                minPowers[c] = Float.NaN;
+                maxPowers[c] = Float.NaN;
+                continue;
+            }
+            int minCode = 255;
+            int maxCode = 0;
+            for (int i = fromIndex; i < toIndex; i++) {
+                int code = Byte.toUnsignedInt(codes[i]);
+                minCode = Math.min(minCode, code);
+                maxCode = Math.max(maxCode, code);
+            }
+            maxPowers[c] = data.decode((byte) minCode); // the encoded power is reversed
+            minPowers[c] = data.decode((byte) maxCode);
+        }
+        return new PowerEnvelope(data.getName(), lowerFrequency, upperFrequency, minPowers, maxPowers);
+    }
+
+    /**
+     * @return name of the spectrum
+     */
+    public String getName() {
+        return name;
+    }
+
+    public double getLowerFrequency() {
+        return lowerFrequency;
+    }
+
+    public double getUpperFrequency() {
+        return upperFrequency;
+    }
+
+    public int getColumns() {
+        return minPowers.length;
+    }
+
+    /**
+     * @param column index
+     * @return center frequency of the column [MHz]
+     */
+    public double getFrequencyAt(int column) {
+        return lowerFrequency + (upperFrequency - lowerFrequency) * (column + 0.5) / minPowers.length;
+    }
+
+    /**
+     * @param column index
+     * @return min power in the column [dBm], NaN if out of the spectrum
+     */
+    public float getMinPower(int column) {
+        return minPowers[column];
+    }
+
+    /**
+     * @param column index
+     * @return max power in the column [dBm], NaN if out of the spectrum
+     */
+    public float getMaxPower(int column) {
+        return maxPowers[column];
+    }
+}
@@ -1,12 +1,7 @@
 package com.torutk.spectrum.data;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.channels.SeekableByteChannel;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.util.Random;
 
 /**
@@ -34,6 +29,9 @@ public class RandomGenerator {
 
     private static Random random = new Random();
 
+    private RandomGenerator() {
+    }
+
     /**
      * Entry method.
      *
@@ -49,6 +47,8 @@ public class RandomGenerator {
                 markovUpperShift = Integer.parseInt(args[++i]);
             } else if ("-l".equals(args[i])) {
                 markovLowerShift = Integer.parseInt(args[++i]);
+            } else if ("-n".equals(args[i])) {
+                numSamples = Long.parseLong(args[++i]);
             } else {
                 printUsageAndExit();
             }
@@ -59,29 +59,15 @@ public class RandomGenerator {
         }
 
         System.out.println("Random Spectrum Generator");
-        System.out.printf("outfile=%s probability=%f upper shift=%d lower shift=%d%n",
-                outPath, markovProbability, markovUpperShift, markovLowerShift
+        System.out.printf("outfile=%s probability=%f upper shift=%d lower shift=%d samples=%d%n",
+                outPath, markovProbability, markovUpperShift, markovLowerShift, numSamples
         );
 
-        try (SeekableByteChannel channel = Files.newByteChannel(
-                outPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)
-        ) {
-            ByteBuffer buffer = ByteBuffer.allocateDirect((int) (numSamples * 4 + 32));
-            buffer.order(ByteOrder.LITTLE_ENDIAN);
-            buffer.putLong(numSamples);
-            buffer.putDouble(startFrequency);
-            buffer.putDouble(stopFrequency);
-            buffer.putFloat(referenceLevel);
-            buffer.putFloat(scale);
-            int previous = 250;
-            for (int i = 0; i < numSamples; i++) {
-                int value = markov(markovProbability, previous, markovUpperShift, markovLowerShift);
-                previous = value;
-                buffer.putInt(value);
-            }
-            buffer.flip();
-            channel.write(buffer);
-        }
+        int[] previous = {250};
+        SpectrumDataWriter.write(outPath, numSamples, startFrequency, stopFrequency, referenceLevel, scale, () -> {
+            previous[0] = markov(markovProbability, previous[0], markovUpperShift, markovLowerShift);
+            return previous[0];
+        });
     }
 
     /**
@@ -102,11 +88,12 @@ public class RandomGenerator {
     }
 
     static void printUsageAndExit() {
-        System.out.println("Command line usage: -f <file> -p <probability> -u <upper shift> -l <lower shift>");
+        System.out.println("Command line usage: -f <file> -p <probability> -u <upper shift> -l <lower shift> [-n <samples>]");
         System.out.println("\tfile: spectrum data file to be generated");
         System.out.println("\tprobability: of power increased (0.0 to 1.0) by markov model");
         System.out.println("\tupper shift: amount of power increase in a step");
         System.out.println("\tlower shift: amount of power decrease in a step");
+        System.out.println("\tsamples: number of samples (default: 10000)");
         System.exit(1);
     }
 }
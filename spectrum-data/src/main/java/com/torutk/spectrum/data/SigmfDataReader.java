@@ -0,0 +1,196 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reader of a spectrum in SigMF style, a pair of JSON metadata file and raw data file of the same base name.
+ *
+ * <pre>
+ *     sweep.sigmf-meta
+ *     {
+ *       "global": {
+ *         "core:datatype": "rf32_le",
+ *         "spectrum:start_frequency": 10950000000,
+ *         "spectrum:stop_frequency": 11700000000,
+ *         "spectrum:reference_level": -20,
+ *         "spectrum:scale": 5
+ *       }
+ *     }
+ *     sweep.sigmf-data
+ *     power [dBm] of each sample, 32bit float
+ * </pre>
+ * The datatype is "rf32_le" or "rf32_be", frequencies are in Hz as SigMF.
+ * If the start and stop frequency are omitted, they are calculated by "core:frequency" of the first capture
+ * as the center and "core:sample_rate" of global as the span.
+ * If the reference level or the scale are omitted, they are chosen to cover the powers by scanning the data file
+ * before encoding.
+ * The data file is read streaming through a direct buffer, and the powers are encoded on the fly.
+ * Only the metadata file is readable, so that a pair is read once when both files match a pattern.
+ */
+class SigmfDataReader implements SpectrumDataReader {
+    private static final String META_EXTENSION = ".sigmf-meta";
+    private static final String DATA_EXTENSION = ".sigmf-data";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    @Override
+    public String getFormatName() {
+        return "SigMF";
+    }
+
+    @Override
+    public String[] getFilePatterns() {
+        return new String[]{"*" + META_EXTENSION};
+    }
+
+    @Override
+    public boolean canRead(Path path, ByteBuffer head) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(META_EXTENSION) && Files.isRegularFile(path) && Files.isRegularFile(dataPathOf(path));
+    }
+
+    @Override
+    public SpectrumData read(Path path) throws IOException {
+        Path metaPath = path;
+        Path dataPath = dataPathOf(path);
+        try (var stage = PerformanceMonitor.begin("parse", dataPath.toString())) {
+            Map<?, ?> meta = readMeta(metaPath);
+            Map<?, ?> global = (Map<?, ?>) meta.get("global");
+            ByteOrder order = byteOrderOf(global.get("core:datatype"), metaPath);
+            long numSamples = Files.size(dataPath) / Float.BYTES;
+            if (numSamples < 2 || numSamples > Integer.MAX_VALUE) {
+                throw new IOException("illegal number of samples " + numSamples + " in " + dataPath);
+            }
+            stage.setSamples(numSamples);
+            double[] frequencies = frequenciesOf(meta, metaPath);
+            Number referenceLevel = numberOf(global.get("spectrum:reference_level"), "reference_level", metaPath);
+            Number scale = numberOf(global.get("spectrum:scale"), "scale", metaPath);
+            if (referenceLevel == null || scale == null) {
+                float[] range = rangeOf(dataPath, order, (int) numSamples);
+                referenceLevel = SpectrumDataReaders.referenceLevelFor(range[1]);
+                scale = SpectrumDataReaders.scaleFor(range[0], referenceLevel.floatValue());
+            }
+            byte[] codes = encode(dataPath, order, (int) numSamples, referenceLevel.floatValue(), scale.floatValue());
+            String name = SpectrumDataReaders.baseNameOf(metaPath, META_EXTENSION);
+            return new SpectrumData(name, frequencies[0], frequencies[1],
+                    referenceLevel.floatValue(), scale.floatValue(), codes);
+        }
+    }
+
+    private static Map<?, ?> readMeta(Path metaPath) throws IOException {
+        Object meta;
+        try {
+            meta = Json.parse(Files.readString(metaPath));
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("malformed metadata " + metaPath + ": " + ex.getMessage(), ex);
+        }
+        if (!(meta instanceof Map) || !(((Map<?, ?>) meta).get("global") instanceof Map)) {
+            throw new IOException("no global object in " + metaPath);
+        }
+        return (Map<?, ?>) meta;
+    }
+
+    private static ByteOrder byteOrderOf(Object datatype, Path metaPath) throws IOException {
+        if ("rf32_le".equals(datatype)) {
+            return ByteOrder.LITTLE_ENDIAN;
+        } else if ("rf32_be".equals(datatype)) {
+            return ByteOrder.BIG_ENDIAN;
+        }
+        throw new IOException("unsupported datatype " + datatype + " in " + metaPath);
+    }
+
+    /**
+     * @return start and stop frequency [MHz]
+     */
+    private static double[] frequenciesOf(Map<?, ?> meta, Path metaPath) throws IOException {
+        Map<?, ?> global = (Map<?, ?>) meta.get("global");
+        Number start = numberOf(global.get("spectrum:start_frequency"), "start_frequency", metaPath);
+        Number stop = numberOf(global.get("spectrum:stop_frequency"), "stop_frequency", metaPath);
+        if (start == null || stop == null) {
+            Number span = numberOf(global.get("core:sample_rate"), "sample_rate", metaPath);
+            Number center = null;
+            if (meta.get("captures") instanceof List) {
+                center = centerOf((List<?>) meta.get("captures"), metaPath);
+            }
+            if (span == null || center == null) {
+                throw new IOException("no frequency range in " + metaPath);
+            }
+            start = center.doubleValue() - span.doubleValue() / 2;
+            stop = center.doubleValue() + span.doubleValue() / 2;
+        }
+        if (stop.doubleValue() <= start.doubleValue()) {
+            throw new IOException("stop frequency is not above start frequency in " + metaPath);
+        }
+        return new double[]{start.doubleValue() / 1e6, stop.doubleValue() / 1e6};
+    }
+
+    private static Number centerOf(List<?> captures, Path metaPath) throws IOException {
+        if (captures.isEmpty() || !(captures.get(0) instanceof Map)) {
+            return null;
+        }
+        return numberOf(((Map<?, ?>) captures.get(0)).get("core:frequency"), "frequency", metaPath);
+    }
+
+    private static Number numberOf(Object value, String key, Path metaPath) throws IOException {
+        if (value == null || value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IOException(key + " is not a number in " + metaPath);
+    }
+
+    /**
+     * @return min and max power in the data file [dBm]
+     */
+    private static float[] rangeOf(Path dataPath, ByteOrder order, int numSamples) throws IOException {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(order);
+        try (FileChannel channel = FileChannel.open(dataPath)) {
+            int index = 0;
+            while (index < numSamples) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("unexpected end of " + dataPath);
+                }
+                buffer.flip();
+                while (buffer.remaining() >= Float.BYTES && index < numSamples) {
+                    float power = buffer.getFloat();
+                    min = Math.min(min, power);
+                    max = Math.max(max, power);
+                    index++;
+                }
+                buffer.compact();
+            }
+        }
+        return new float[]{min, max};
+    }
+
+    private static byte[] encode(Path dataPath, ByteOrder order, int numSamples, float referenceLevel, float scale)
+            throws IOException {
+        byte[] codes = new byte[numSamples];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(order);
+        try (FileChannel channel = FileChannel.open(dataPath)) {
+            int index = 0;
+            while (index < numSamples) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("unexpected end of " + dataPath);
+                }
+                buffer.flip();
+                while (buffer.remaining() >= Float.BYTES && index < numSamples) {
+                    codes[index++] = SpectrumData.encode(buffer.getFloat(), referenceLevel, scale);
+                }
+                buffer.compact();
+            }
+        }
+        return codes;
+    }
+
+    private static Path dataPathOf(Path metaPath) {
+        return metaPath.resolveSibling(SpectrumDataReaders.baseNameOf(metaPath, META_EXTENSION) + DATA_EXTENSION);
+    }
+}
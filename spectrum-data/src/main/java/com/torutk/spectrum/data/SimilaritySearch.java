@@ -0,0 +1,125 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Finds archived sweeps similar to query sweeps, by {@link SimilarityIndex} of sketches.
+ *
+ * Sketches of archived files are made while parsing in parallel, the sweep is discarded after sketched,
+ * so that an archive of 100k sweeps is indexed in memory of about 60MB.
+ * Then the most similar files of each query file are printed to the standard output as CSV.
+ */
+public class SimilaritySearch {
+    private static final Logger logger = Logger.getLogger(SimilaritySearch.class.getName());
+
+    private final List<String> globs = new ArrayList<>();
+    private final List<Path> queries = new ArrayList<>();
+    private int k = 10;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private SimilaritySearch() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        var search = new SimilaritySearch();
+        for (int i = 0; i < args.length; i++) {
+            if ("-i".equals(args[i])) {
+                search.globs.add(args[++i]);
+            } else if ("-q".equals(args[i])) {
+                search.queries.add(Paths.get(args[++i]));
+            } else if ("-k".equals(args[i])) {
+                search.k = Integer.parseInt(args[++i]);
+            } else if ("-t".equals(args[i])) {
+                search.threads = Integer.parseInt(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (search.globs.isEmpty() || search.queries.isEmpty()) {
+            System.err.println("input files and query files must be specified.");
+            printUsageAndExit();
+        }
+        int failures = search.run();
+        if (failures > 0) {
+            System.err.printf("%d file(s) failed to index.%n", failures);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Index all files matched to the input globs, then search files similar to each query file.
+     *
+     * @return the number of files failed to index
+     * @throws IOException if input files cannot be searched, or a query file cannot be read
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    int run() throws IOException, InterruptedException {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String glob : globs) {
+            paths.addAll(FileFinder.findAll(glob));
+        }
+        logger.info(() -> String.format("%d file(s) to be indexed with %d thread(s)", paths.size(), threads));
+        var index = new SimilarityIndex<Path>();
+        int failures = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(paths.size());
+            for (Path path : paths) {
+                futures.add(executor.submit(() -> {
+                    index.add(path, SpectrumSketch.of(SpectrumDataReaders.read(path)));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    logger.warning("could not index file: " + ex.getCause());
+                    failures++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.println("Query, Rank, Similarity, File");
+        for (Path query : queries) {
+            SpectrumSketch sketch = SpectrumSketch.of(SpectrumDataReaders.read(query));
+            List<SimilarityIndex.Match<Path>> matches;
+            try (var stage = PerformanceMonitor.begin("query", query.toString())) {
+                matches = index.nearest(sketch, k);
+                stage.setSamples(index.size());
+            }
+            for (int rank = 0; rank < matches.size(); rank++) {
+                System.out.printf("%s, %d, %f, %s%n",
+                        query, rank + 1, matches.get(rank).getSimilarity(), matches.get(rank).getItem());
+            }
+        }
+        PerformanceMonitor.logSummary();
+        return failures;
+    }
+
+    static void printUsageAndExit() {
+        System.out.println("Command line usage: -i <glob> [-i <glob> ...] -q <file> [-q <file> ...] [-k <results>] [-t <threads>]");
+        System.out.println("\tglob: archived spectrum files to be indexed, e.g. archive/**/*.dat");
+        System.out.println("\tfile: spectrum file to search similar files of");
+        System.out.println("\tresults: number of similar files of each query (default: 10)");
+        System.out.println("\tthreads: number of worker threads (default: number of processors)");
+        System.exit(1);
+    }
+}
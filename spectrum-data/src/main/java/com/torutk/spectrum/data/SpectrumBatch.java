@@ -0,0 +1,284 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Headless batch processing of spectrum data files, without JavaFX.
+ *
+ * Each file matched to the input globs goes through the pipeline below in parallel on all cores.
+ * <pre>
+ *     parse --> align(-a) --> detrend(-d) --> RC filter(-r) --> statistics(-s) --> export as CSV/data(-o)
+ *          |                                                                    \-> render as PNG(-g)
+ *          \-> mask check(-m)
+ * </pre>
+ * Statistics are printed to the standard output in the order of input files.
+ * Mask violations are written to the violation file, or the standard output, in the order of input files.
+ * The mask is checked on the raw powers, not detrended nor filtered.
+ */
+public class SpectrumBatch {
+    private static final Logger logger = Logger.getLogger(SpectrumBatch.class.getName());
+
+    private final List<String> globs = new ArrayList<>();
+    private Path alignPath;
+    private Path detrendPath;
+    private boolean useRcFilter;
+    private boolean printStatistics;
+    private Path exportDirectory;
+    private String exportFormat = "csv";
+    private Path imageDirectory;
+    private int imageWidth = 320;
+    private int imageHeight = 200;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String maskGlob;
+    private double maskMargin = 3;
+    private Path violationPath;
+
+    private SpectrumData alignReference;
+    private FrequencyOffsetEstimator offsetEstimator;
+    private SpectrumData detrend;
+    private SpectrumImageRenderer renderer;
+    private SpectrumMask mask;
+
+    private SpectrumBatch() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        var batch = new SpectrumBatch();
+        for (int i = 0; i < args.length; i++) {
+            if ("-i".equals(args[i])) {
+                batch.globs.add(args[++i]);
+            } else if ("-a".equals(args[i])) {
+                batch.alignPath = Paths.get(args[++i]);
+            } else if ("-d".equals(args[i])) {
+                batch.detrendPath = Paths.get(args[++i]);
+            } else if ("-r".equals(args[i])) {
+                batch.useRcFilter = true;
+            } else if ("-s".equals(args[i])) {
+                batch.printStatistics = true;
+            } else if ("-o".equals(args[i])) {
+                batch.exportDirectory = Paths.get(args[++i]);
+            } else if ("-f".equals(args[i])) {
+                batch.exportFormat = args[++i];
+            } else if ("-g".equals(args[i])) {
+                batch.imageDirectory = Paths.get(args[++i]);
+            } else if ("-w".equals(args[i])) {
+                String size = args[++i];
+                if (!size.matches("[1-9][0-9]{0,4}x[1-9][0-9]{0,4}")) {
+                    System.err.println("image size must be <width>x<height>, e.g. 320x200: " + size);
+                    printUsageAndExit();
+                }
+                batch.imageWidth = Integer.parseInt(size.substring(0, size.indexOf('x')));
+                batch.imageHeight = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+            } else if ("-t".equals(args[i])) {
+                batch.threads = Integer.parseInt(args[++i]);
+            } else if ("-m".equals(args[i])) {
+                batch.maskGlob = args[++i];
+            } else if ("-M".equals(args[i])) {
+                batch.maskMargin = Double.parseDouble(args[++i]);
+            } else if ("-v".equals(args[i])) {
+                batch.violationPath = Paths.get(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (batch.globs.isEmpty()) {
+            System.err.println("input files must be specified.");
+            printUsageAndExit();
+        }
+        if (!"csv".equals(batch.exportFormat) && !"dat".equals(batch.exportFormat)) {
+            System.err.println("unknown export format: " + batch.exportFormat);
+            printUsageAndExit();
+        }
+        int failures = batch.run();
+        if (failures > 0) {
+            System.err.printf("%d file(s) failed to process.%n", failures);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Run the pipeline over all files matched to the input globs.
+     *
+     * @return the number of files failed to process
+     * @throws IOException if input files cannot be searched, or detrend file cannot be read
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    int run() throws IOException, InterruptedException {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String glob : globs) {
+            paths.addAll(FileFinder.findAll(glob));
+        }
+        logger.info(() -> String.format("%d file(s) to be processed with %d thread(s)", paths.size(), threads));
+        if (alignPath != null) {
+            alignReference = SpectrumDataReaders.read(alignPath);
+            offsetEstimator = new FrequencyOffsetEstimator();
+        }
+        if (detrendPath != null) {
+            detrend = SpectrumDataReaders.read(detrendPath);
+            detrend.getAveragePower(); // calculate lazy value before shared by workers
+        }
+        if (exportDirectory != null) {
+            Files.createDirectories(exportDirectory);
+        }
+        if (imageDirectory != null) {
+            Files.createDirectories(imageDirectory);
+            renderer = new SpectrumImageRenderer(imageWidth, imageHeight);
+        }
+        if (maskGlob != null) {
+            mask = loadMask(maskGlob, maskMargin);
+        }
+        if (printStatistics) {
+            System.out.println(SpectrumStatistics.csvHeader());
+        }
+        PrintStream violationOut = System.out;
+        if (mask != null && violationPath != null) {
+            violationOut = new PrintStream(Files.newOutputStream(violationPath), false, "UTF-8");
+        }
+        if (mask != null) {
+            violationOut.println(MaskViolation.csvHeader());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(paths.size());
+            for (Path path : paths) {
+                futures.add(executor.submit(() -> process(path)));
+            }
+            int failures = 0;
+            long numViolations = 0;
+            for (Future<Result> future : futures) {
+                try {
+                    Result result = future.get();
+                    if (printStatistics) {
+                        System.out.println(result.statistics.toCsv());
+                    }
+                    for (MaskViolation violation : result.violations) {
+                        violationOut.println(violation.toCsv());
+                    }
+                    numViolations += result.violations.size();
+                } catch (ExecutionException ex) {
+                    logger.warning("could not process file: " + ex.getCause());
+                    failures++;
+                }
+            }
+            if (mask != null) {
+                long total = numViolations;
+                logger.info(() -> String.format("%d violation(s) of mask %s", total, mask.getName()));
+            }
+            PerformanceMonitor.logSummary();
+            return failures;
+        } finally {
+            executor.shutdownNow();
+            if (violationOut != System.out) {
+                violationOut.close();
+            }
+        }
+    }
+
+    /**
+     * Load the mask from baseline files, the max hold of them if the glob matches multiple files.
+     *
+     * @param glob of baseline files
+     * @param margin allowed power above the baseline [dB]
+     * @return the mask
+     * @throws IOException if no baseline file is found, or it cannot be read
+     */
+    static SpectrumMask loadMask(String glob, double margin) throws IOException {
+        List<SpectrumData> baselines = new ArrayList<>();
+        for (Path path : FileFinder.findAll(glob)) {
+            baselines.add(SpectrumDataReaders.read(path));
+        }
+        if (baselines.isEmpty()) {
+            throw new IOException("no baseline file matched to " + glob);
+        }
+        logger.info(() -> String.format("mask from %d baseline(s) with margin %.1f dB", baselines.size(), margin));
+        return SpectrumMask.ofMaxHold(baselines, margin);
+    }
+
+    /**
+     * Process one file through the pipeline.
+     *
+     * @param path of spectrum data file
+     * @return statistics of the processed powers, and violations of the mask
+     * @throws IOException if the file cannot be read, or the result cannot be written
+     */
+    private Result process(Path path) throws IOException {
+        SpectrumData data = SpectrumDataReaders.read(path);
+        List<MaskViolation> violations = List.of();
+        if (mask != null) {
+            violations = mask.check(data, Files.getLastModifiedTime(path).toInstant());
+        }
+        if (alignReference != null) {
+            double offset = offsetEstimator.estimate(alignReference, data);
+            logger.fine(() -> String.format("frequency offset of %s: %.6f MHz", path, offset));
+            data = FrequencyOffsetEstimator.shift(data, -offset);
+        }
+        float[] powers = data.getPowersDetrend(detrend);
+        if (useRcFilter) {
+            powers = SpectrumData.applyRcFilter(powers);
+        }
+        float[] frequencies = data.getFrequencies();
+        if (exportDirectory != null && "dat".equals(exportFormat)) {
+            SpectrumDataWriter.write(exportDirectory.resolve(data.getName() + ".dat"), SpectrumData.ofPowers(
+                    data.getName(), data.getStartFrequency(), data.getStopFrequency(), powers));
+        } else if (exportDirectory != null) {
+            SpectrumDataExporter.exportAsCsv(exportDirectory, data.getName(), frequencies, powers);
+        }
+        if (renderer != null) {
+            renderer.renderAsPng(data, powers, imageDirectory.resolve(data.getName() + ".png"));
+        }
+        return new Result(SpectrumStatistics.of(data.getName(), frequencies, powers), violations);
+    }
+
+    /**
+     * Result of processing one file.
+     */
+    private static class Result {
+        private final SpectrumStatistics statistics;
+        private final List<MaskViolation> violations;
+
+        Result(SpectrumStatistics statistics, List<MaskViolation> violations) {
+            this.statistics = statistics;
+            this.violations = violations;
+        }
+    }
+
+    static void printUsageAndExit() {
+        System.out.println("Command line usage: -i <glob> [-i <glob> ...] [-a <reference file>] [-d <detrend file>] [-r] [-s] [-o <directory> [-f csv|dat]] [-g <directory> [-w <width>x<height>]] [-t <threads>] [-m <glob> [-M <margin>] [-v <file>]]");
+        System.out.println("\tglob: spectrum data files to be processed, e.g. data/**/*.dat");
+        System.out.println("\treference file: spectrum data file to align the frequency of each spectrum to");
+        System.out.println("\tdetrend file: spectrum data file to detrend each spectrum");
+        System.out.println("\t-r: apply RC filter");
+        System.out.println("\t-s: print statistics of each spectrum as CSV");
+        System.out.println("\t-o directory: export each processed spectrum to CSV file in this directory");
+        System.out.println("\t-f: format of exported files, CSV (default) or data file of Glowlink");
+        System.out.println("\t-g directory: render each processed spectrum to PNG file in this directory");
+        System.out.println("\twidth, height: size of PNG image (default: 320x200)");
+        System.out.println("\tthreads: number of worker threads (default: number of processors)");
+        System.out.println("\t-m glob: baseline files of mask, max hold of them if multiple files matched");
+        System.out.println("\tmargin: allowed power above the baseline [dB] (default: 3)");
+        System.out.println("\t-v file: write mask violations as CSV to this file (default: standard output)");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,134 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Converts spectrum files of any format known to {@link SpectrumDataReaders} into data files or CSV files.
+ *
+ * Files are converted in parallel, each file is read by the reader of its format and written streaming
+ * by {@link SpectrumDataWriter} or {@link SpectrumDataExporter}, named after the spectrum in the output directory.
+ * Converting processed spectra exported as CSV into data files makes them reloaded at the speed of parse.
+ */
+public class SpectrumConverter {
+    private static final Logger logger = Logger.getLogger(SpectrumConverter.class.getName());
+
+    private final List<String> globs = new ArrayList<>();
+    private Path outDirectory;
+    private String format = "dat";
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private SpectrumConverter() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        var converter = new SpectrumConverter();
+        for (int i = 0; i < args.length; i++) {
+            if ("-i".equals(args[i])) {
+                converter.globs.add(args[++i]);
+            } else if ("-o".equals(args[i])) {
+                converter.outDirectory = Paths.get(args[++i]);
+            } else if ("-f".equals(args[i])) {
+                converter.format = args[++i];
+            } else if ("-t".equals(args[i])) {
+                converter.threads = Integer.parseInt(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (converter.globs.isEmpty() || converter.outDirectory == null) {
+            System.err.println("input files and output directory must be specified.");
+            printUsageAndExit();
+        }
+        if (!"dat".equals(converter.format) && !"csv".equals(converter.format)) {
+            System.err.println("unknown output format: " + converter.format);
+            printUsageAndExit();
+        }
+        int failures = converter.run();
+        if (failures > 0) {
+            System.err.printf("%d file(s) failed to convert.%n", failures);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Convert all files matched to the input globs.
+     *
+     * @return the number of files failed to convert
+     * @throws IOException if input files cannot be searched, or the output directory cannot be created
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    int run() throws IOException, InterruptedException {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String glob : globs) {
+            paths.addAll(FileFinder.findAll(glob));
+        }
+        Files.createDirectories(outDirectory);
+        logger.info(() -> String.format("%d file(s) to be converted to %s with %d thread(s)",
+                paths.size(), format, threads));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(paths.size());
+            for (Path path : paths) {
+                futures.add(executor.submit(() -> {
+                    convert(path);
+                    return null;
+                }));
+            }
+            int failures = 0;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    logger.warning("could not convert file: " + ex.getCause());
+                    failures++;
+                }
+            }
+            PerformanceMonitor.logSummary();
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Convert one file.
+     *
+     * @param path of spectrum file
+     * @throws IOException if the file cannot be read, or the result cannot be written
+     */
+    private void convert(Path path) throws IOException {
+        SpectrumData data = SpectrumDataReaders.read(path);
+        if ("dat".equals(format)) {
+            SpectrumDataWriter.write(outDirectory.resolve(data.getName() + ".dat"), data);
+        } else {
+            SpectrumDataExporter.exportAsCsv(outDirectory, data);
+        }
+        logger.fine(() -> String.format("converted %s to %s", path, format));
+    }
+
+    static void printUsageAndExit() {
+        System.out.println("Command line usage: -i <glob> [-i <glob> ...] -o <directory> [-f dat|csv] [-t <threads>]");
+        System.out.println("\tglob: spectrum files of any readable format, e.g. export/*.csv");
+        System.out.println("\tdirectory: converted files are written in this directory, named after the spectrum");
+        System.out.println("\t-f: format of converted files, data file of Glowlink (default) or CSV");
+        System.out.println("\tthreads: number of worker threads (default: number of processors)");
+        System.exit(1);
+    }
+}
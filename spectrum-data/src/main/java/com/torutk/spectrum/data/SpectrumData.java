@@ -1,9 +1,9 @@
 package com.torutk.spectrum.data;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.logging.Logger;
-import java.util.stream.IntStream;
 
 /**
  * One spectrum data.
@@ -34,6 +34,9 @@ public class SpectrumData {
     private final byte[] powers;
 
     private float averagePower = Float.NaN; // lazy
+    private volatile BandPowerIndex bandPowerIndex; // lazy
+    private volatile long fingerprint; // lazy, unless calculated by parser
+    private volatile boolean hasFingerprint;
 
     /**
      * Unit conversion from dBm to mW.
@@ -84,6 +87,29 @@ public class SpectrumData {
         this.powers = powers;
     }
 
+    /**
+     * Creates a spectrum of processed powers, e.g. detrended or filtered, to be written as a data file.
+     * The powers are encoded by the reference level and the scale covering them.
+     *
+     * @param name of the spectrum
+     * @param startFrequency [MHz]
+     * @param stopFrequency [MHz]
+     * @param powers power of each sample [dBm]
+     * @return the encoded spectrum
+     */
+    public static SpectrumData ofPowers(String name, double startFrequency, double stopFrequency, float[] powers) {
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float power : powers) {
+            min = Math.min(min, power);
+            max = Math.max(max, power);
+        }
+        float referenceLevel = SpectrumDataReaders.referenceLevelFor(max);
+        float scale = SpectrumDataReaders.scaleFor(min, referenceLevel);
+        return new SpectrumData(name, startFrequency, stopFrequency, referenceLevel, scale,
+                SpectrumKernels.encode(powers, referenceLevel, scale));
+    }
+
     /**
      * Apply RC filter (Low-pass filter) to previous value and current value with specified weight.
      *
@@ -102,6 +128,22 @@ public class SpectrumData {
         return toDbm(filteredMilliwatt);
     }
 
+    /**
+     * Apply RC filter (Low-pass filter) to the whole powers from the first element to the last element.
+     *
+     * @param powers input powers [dBm]
+     * @return RC filtered powers [dBm], a new array of same length
+     */
+    public static float[] applyRcFilter(float[] powers) {
+        float[] filtered = new float[powers.length];
+        double previous = powers.length > 0 ? powers[0] : 0;
+        for (int i = 0; i < powers.length; i++) {
+            previous = applyRcFilter(previous, powers[i]);
+            filtered[i] = (float) previous;
+        }
+        return filtered;
+    }
+
     public int getId() {
         return id;
     }
@@ -114,6 +156,41 @@ public class SpectrumData {
         return name;
     }
 
+    /**
+     * Returns the fingerprint of the content, the header and the powers, not including the name.
+     * Spectra of same content have same fingerprint, and different content have different fingerprint
+     * with high probability.
+     *
+     * @return 64bit hash of the content
+     * @see #hasSameContent(SpectrumData)
+     */
+    public long getFingerprint() {
+        if (!hasFingerprint) {
+            setFingerprint(SpectrumFingerprint.of(this));
+        }
+        return fingerprint;
+    }
+
+    void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+        hasFingerprint = true;
+    }
+
+    /**
+     * Compares the content, the header and the powers, not including the name.
+     *
+     * @param other spectrum to be compared
+     * @return true if the content is same
+     */
+    public boolean hasSameContent(SpectrumData other) {
+        return getFingerprint() == other.getFingerprint()
+                && startFrequency == other.startFrequency
+                && stopFrequency == other.stopFrequency
+                && referenceLevel == other.referenceLevel
+                && scale == other.scale
+                && Arrays.equals(powers, other.powers);
+    }
+
     public double getStartFrequency() {
         return startFrequency;
     }
@@ -139,11 +216,7 @@ public class SpectrumData {
      * @return powers array, the unit of each element is [dBm]
      */
     public float[] getPowers() {
-        float[] decodedPowers = new float[powers.length];
-        for (int i = 0; i < powers.length; i++) {
-            decodedPowers[i] = decode(powers[i]);
-        }
-        return decodedPowers;
+        return SpectrumKernels.decode(powers, referenceLevel, scale);
     }
 
     /**
@@ -151,11 +224,7 @@ public class SpectrumData {
      * @return frequencies array, the unit of each element is [MHz]
      */
     public float[] getFrequencies() {
-        float[] frequencies = new float[powers.length];
-        for (int i = 0; i < powers.length; i++) {
-            frequencies[i] = getFrequencyAt(i);
-        }
-        return frequencies;
+        return SpectrumKernels.frequencies(startFrequency, stopFrequency, powers.length);
     }
 
     /**
@@ -170,18 +239,20 @@ public class SpectrumData {
         if (detrend == null) {
             return getPowers();
         }
-        float[] decodedPowers = new float[powers.length];
-        for (int i = 0; i < powers.length; i++) {
-            float frequency = getFrequencyAt(i);
-            if (detrend.containsFrequency(frequency)) {
-                double bias = detrend.getPowerAt(frequency) - detrend.getAveragePower();
-                double detrended = decode(powers[i]) - bias;
-                decodedPowers[i] = (float) detrended;
-            } else {
-                decodedPowers[i] = decode(powers[i]);
-            }
-        }
-        return decodedPowers;
+        return SpectrumKernels.detrend(this, detrend);
+    }
+
+    /**
+     * encode power to the value of data file, reverse of {@link #decode(byte)}.
+     *
+     * @param power [dBm]
+     * @param referenceLevel [dBm]
+     * @param scale [dBm/DIV]
+     * @return encoded power, clamped to the range 0-255
+     */
+    public static byte encode(double power, float referenceLevel, float scale) {
+        long code = Math.round((referenceLevel - power) * 255 / (scale * 10));
+        return (byte) Math.max(0, Math.min(255, code));
     }
 
     /**
@@ -223,7 +294,7 @@ public class SpectrumData {
     public float getPowerAt(float frequency) {
         assert containsFrequency(frequency);
         int index = (int) Math.floor((frequency - startFrequency) / getSamplingRate());
-        return decode(powers[index]);
+        return decode(powers[Math.min(index, powers.length - 1)]); // stop frequency is the end of last sample
     }
 
     /**
@@ -234,17 +305,87 @@ public class SpectrumData {
         return (stopFrequency - startFrequency) / powers.length;
     }
 
+    /**
+     * Returns the samples covering the frequency window, on the grid of the same sampling rate.
+     *
+     * @param lowerFrequency lower edge of the window [MHz]
+     * @param upperFrequency upper edge of the window [MHz]
+     * @return the spectrum of the samples, whose start/stop frequency are the edges of the first/last sample
+     * @throws IllegalArgumentException if no sample is in the window
+     */
+    public SpectrumData slice(double lowerFrequency, double upperFrequency) {
+        int[] range = sampleRangeOf(startFrequency, stopFrequency, powers.length, lowerFrequency, upperFrequency);
+        if (range[0] == 0 && range[1] == powers.length) {
+            return this;
+        }
+        return new SpectrumData(name, startFrequency + range[0] * getSamplingRate(),
+                startFrequency + range[1] * getSamplingRate(), referenceLevel, scale,
+                Arrays.copyOfRange(powers, range[0], range[1]));
+    }
+
+    /**
+     * Calculates the range of samples covering the frequency window.
+     *
+     * @param startFrequency of the spectrum [MHz]
+     * @param stopFrequency of the spectrum [MHz]
+     * @param size number of samples of the spectrum
+     * @param lowerFrequency lower edge of the window [MHz]
+     * @param upperFrequency upper edge of the window [MHz]
+     * @return the first sample (inclusive) and the last sample (exclusive)
+     * @throws IllegalArgumentException if no sample is in the window
+     */
+    static int[] sampleRangeOf(
+            double startFrequency, double stopFrequency, int size, double lowerFrequency, double upperFrequency
+    ) {
+        double rate = (stopFrequency - startFrequency) / size;
+        int from = (int) Math.max(0, Math.floor((lowerFrequency - startFrequency) / rate));
+        int to = (int) Math.min(size, Math.ceil((upperFrequency - startFrequency) / rate));
+        if (from >= to) {
+            throw new IllegalArgumentException(String.format(
+                    "no sample in %f-%fMHz of spectrum %f-%fMHz",
+                    lowerFrequency, upperFrequency, startFrequency, stopFrequency));
+        }
+        return new int[]{from, to};
+    }
+
+    /**
+     * Returns the average power on mW scale, calculated from the number of samples of each code at the first call.
+     *
+     * @return average power [dBm]
+     */
     public float getAveragePower() {
         if (Float.isNaN(averagePower)) {
-            double averagePowerMilliwatt = (float) IntStream.range(0, powers.length)
-                    .mapToDouble(i -> (double) decode(powers[i]))
-                    .map(SpectrumData::toMilliwatt)
-                    .average().orElseGet(() -> powers[0]);
-            averagePower = (float) toDbm(averagePowerMilliwatt);
+            int[] counts = SpectrumKernels.histogram(powers);
+            double sumMilliwatt = 0;
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    sumMilliwatt += counts[code] * toMilliwatt(decode((byte) code));
+                }
+            }
+            averagePower = (float) toDbm((float) (sumMilliwatt / powers.length));
         }
         return averagePower;
     }
 
+    /**
+     * Returns the cumulative power index of this spectrum, built at the first call.
+     *
+     * @return the band power index
+     */
+    public BandPowerIndex getBandPowerIndex() {
+        BandPowerIndex index = bandPowerIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = bandPowerIndex;
+                if (index == null) {
+                    index = new BandPowerIndex(this);
+                    bandPowerIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      *
      * @return byte array expression of powers
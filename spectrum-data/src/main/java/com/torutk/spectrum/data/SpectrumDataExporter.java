@@ -0,0 +1,53 @@
+package com.torutk.spectrum.data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SpectrumDataExporter {
+    private SpectrumDataExporter() {
+    }
+
+    /**
+     * Exports SpectrumData to CSV file.
+     *
+     * <pre>
+     * "Frequency[MHz]", "Power[dBm]"
+     * 3456.7, -89.1
+     *   :       :
+     * </pre>
+     * @param toDirectory save file in this directory
+     * @param data save this data as CSV
+     * @throws IOException if the file failed to write
+     */
+    public static void exportAsCsv(Path toDirectory, SpectrumData data) throws IOException {
+        exportAsCsv(toDirectory, data.getName(), data.getFrequencies(), data.getPowers());
+    }
+
+    /**
+     * Exports processed powers (e.g. detrended, filtered) to CSV file named after the specified name.
+     *
+     * @param toDirectory save file in this directory
+     * @param name of the file without extension
+     * @param frequencies frequency of each sample [MHz]
+     * @param powers power of each sample [dBm]
+     * @throws IOException if the file failed to write
+     */
+    public static void exportAsCsv(Path toDirectory, String name, float[] frequencies, float[] powers)
+            throws IOException {
+        assert frequencies.length == powers.length;
+        Path csvPath = toDirectory.resolve(name + ".csv");
+        try (var stage = PerformanceMonitor.begin("export", csvPath.toString());
+             BufferedWriter writer = Files.newBufferedWriter(csvPath, Charset.forName("Windows-31J"))) {
+            stage.setSamples(powers.length);
+            writer.write("Frequency[MHz], Power[dBm]");
+            writer.newLine();
+            for (int i = 0; i < powers.length; i++) {
+                writer.write(String.format("%f, %f", frequencies[i], powers[i]));
+                writer.newLine();
+            }
+        }
+    }
+}
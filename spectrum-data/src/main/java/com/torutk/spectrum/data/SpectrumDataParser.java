@@ -0,0 +1,144 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Parse data file saved from Glowlink Model 1030/8000.
+ *
+ * Data File Format:
+ * <pre>
+ *     |Number of samples | Start Frequency |
+ *     | Stop Frequency   | Ref.Lev. |Scale |
+ *     | data#1 | data#2  | data#3 | data#4 |
+ *     | data#5 | data#6  | data#7 | data#8 |
+ *     |   :    |    :    |    :   |    :   |
+ * </pre>
+ * <ul>
+ *     <li>Number of samples : 64bit integer</li>
+ *     <li>Start Frequency : 64bit double</li>
+ *     <li>Stop Frequency : 64bit double</li>
+ *     <li>Reference Level : 32bit float</li>
+ *     <li>Scale : 32bit float</li>
+ *     <li>data#x : 32bit integer</li>
+ * </ul>
+ */
+public class SpectrumDataParser {
+    private static final int HEADER_BYTES = 32;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private SpectrumDataParser() {
+    }
+
+    public static SpectrumData parse(Path path) throws IOException {
+        try (var stage = PerformanceMonitor.begin("parse", path.toString())) {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            var numData = (int) buffer.getLong();
+            var startFrequency = buffer.getDouble();
+            var stopFrequency = buffer.getDouble();
+            var referenceLevel = buffer.getFloat();
+            var scale = buffer.getFloat();
+            var powers = new byte[numData];
+            long hash = SpectrumFingerprint.start(numData, startFrequency, stopFrequency, referenceLevel, scale);
+            long word = 0;
+            for (int i = 0; i < numData; i++) {
+                powers[i] = (byte) buffer.getInt();
+                word = SpectrumFingerprint.pack(word, i, powers[i]);
+                if (SpectrumFingerprint.isWordEnd(i)) {
+                    hash = SpectrumFingerprint.mix(hash, word);
+                    word = 0;
+                }
+            }
+            stage.setSamples(numData);
+            var name = getBaseName(path.getFileName().toString());
+            var data = new SpectrumData(name, startFrequency, stopFrequency, referenceLevel, scale, powers);
+            data.setFingerprint(SpectrumFingerprint.finish(hash, word, numData));
+            return data;
+        }
+    }
+
+    /**
+     * Parses the samples in the frequency window only, reading the header and then the slice of samples
+     * by positioned reads, so that the time and memory are proportional to the window, not to the file.
+     *
+     * @param path of data file
+     * @param lowerFrequency lower edge of the window [MHz]
+     * @param upperFrequency upper edge of the window [MHz]
+     * @return the spectrum covering the window, see {@link SpectrumData#slice(double, double)}
+     * @throws IOException if the file cannot be read or is truncated, or no sample is in the window
+     */
+    public static SpectrumData parse(Path path, double lowerFrequency, double upperFrequency) throws IOException {
+        try (var stage = PerformanceMonitor.begin("parse", path.toString());
+             FileChannel channel = FileChannel.open(path)) {
+            var header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0, path);
+            header.flip();
+            var numData = (int) header.getLong();
+            var startFrequency = header.getDouble();
+            var stopFrequency = header.getDouble();
+            var referenceLevel = header.getFloat();
+            var scale = header.getFloat();
+            int[] range;
+            try {
+                range = SpectrumData.sampleRangeOf(
+                        startFrequency, stopFrequency, numData, lowerFrequency, upperFrequency);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage() + ": " + path, e);
+            }
+            var powers = new byte[range[1] - range[0]];
+            var buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_BYTES + (long) range[0] * Integer.BYTES;
+            int index = 0;
+            while (index < powers.length) {
+                buffer.clear().limit((int) Math.min(BUFFER_BYTES, (long) (powers.length - index) * Integer.BYTES));
+                position += readFully(channel, buffer, position, path);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    powers[index++] = (byte) buffer.getInt();
+                }
+            }
+            stage.setSamples(powers.length);
+            double rate = (stopFrequency - startFrequency) / numData;
+            return new SpectrumData(getBaseName(path.getFileName().toString()),
+                    startFrequency + range[0] * rate, startFrequency + range[1] * rate, referenceLevel, scale, powers);
+        }
+    }
+
+    /**
+     * Reads bytes till the buffer is full from the position of the channel.
+     *
+     * @return the number of bytes read
+     * @throws IOException if the end of file is reached before the buffer is full
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position, Path path)
+            throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                throw new IOException("unexpected end of " + path);
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the name omitted the extension.
+     * @param name full name included extension
+     * @return the name omitted the extension
+     */
+    private static String getBaseName(String name) {
+        int index = name.lastIndexOf('.');
+        if (index <= 0) {
+            return name;
+        } else {
+            return name.substring(0, index);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Service provider interface of readers of a spectrum file format.
+ *
+ * Readers are looked up by {@link SpectrumDataReaders}, built-in readers and providers of this interface
+ * registered by {@link java.util.ServiceLoader}. A reader is stateless and may be called by multiple threads.
+ * A reader should read the file streaming, without reading the whole file into memory other than powers.
+ */
+public interface SpectrumDataReader {
+
+    /**
+     * @return name of the format, e.g. "CSV"
+     */
+    String getFormatName();
+
+    /**
+     * @return file name patterns of the format for file choosers, e.g. "*.csv"
+     */
+    String[] getFilePatterns();
+
+    /**
+     * Returns true if the file seems to be of this format.
+     *
+     * @param path of the file
+     * @param head the first bytes of the file, up to {@link SpectrumDataReaders#HEAD_BYTES}, read only
+     * @return true if this reader can read the file
+     * @throws IOException if attributes of the file cannot be read
+     */
+    boolean canRead(Path path, ByteBuffer head) throws IOException;
+
+    /**
+     * Reads the spectrum from the file.
+     *
+     * @param path of the file
+     * @return the spectrum named after the file name without the extension
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    SpectrumData read(Path path) throws IOException;
+
+    /**
+     * Reads the samples of the spectrum in the frequency window from the file.
+     * The default reads the whole spectrum and slices it, a reader of a format of fixed size samples
+     * should read only the samples in the window.
+     *
+     * @param path of the file
+     * @param lowerFrequency lower edge of the window [MHz]
+     * @param upperFrequency upper edge of the window [MHz]
+     * @return the spectrum covering the window, see {@link SpectrumData#slice(double, double)}
+     * @throws IOException if the file cannot be read or is malformed, or no sample is in the window
+     */
+    default SpectrumData read(Path path, double lowerFrequency, double upperFrequency) throws IOException {
+        try {
+            return read(path).slice(lowerFrequency, upperFrequency);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + ": " + path, e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
+/**
+ * Reads a spectrum file of any known format, detected by the file name and the first bytes of the file.
+ *
+ * Known formats are the built-in ones below, and the ones of {@link SpectrumDataReader} providers found by
+ * {@link ServiceLoader}, which are tried after the built-ins in the order found.
+ * <ul>
+ *     <li>Glowlink Model 1030/8000 binary, see {@link SpectrumDataParser}</li>
+ *     <li>CSV exported by {@link SpectrumDataExporter}</li>
+ *     <li>SigMF style, JSON metadata file and float32 data file</li>
+ * </ul>
+ */
+public class SpectrumDataReaders {
+    private static final Logger logger = Logger.getLogger(SpectrumDataReaders.class.getName());
+    static final int HEAD_BYTES = 256;
+
+    private static final List<SpectrumDataReader> readers = loadReaders();
+
+    private SpectrumDataReaders() {
+    }
+
+    private static List<SpectrumDataReader> loadReaders() {
+        List<SpectrumDataReader> list = new ArrayList<>(List.of(
+                new GlowlinkDataReader(), new CsvDataReader(), new SigmfDataReader()
+        ));
+        for (SpectrumDataReader provider : ServiceLoader.load(SpectrumDataReader.class)) {
+            if (list.stream().noneMatch(reader -> reader.getClass() == provider.getClass())) {
+                logger.config(() -> "spectrum data reader provider found: " + provider.getFormatName());
+                list.add(provider);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return all known readers in order of detection
+     */
+    public static List<SpectrumDataReader> getReaders() {
+        return readers;
+    }
+
+    /**
+     * Reads the spectrum from the file by the reader of the detected format.
+     *
+     * @param path of the file
+     * @return the spectrum
+     * @throws IOException if the format is unknown, or the file cannot be read or is malformed
+     */
+    public static SpectrumData read(Path path) throws IOException {
+        return readerOf(path).read(path);
+    }
+
+    /**
+     * Reads the samples in the frequency window from the file by the reader of the detected format.
+     *
+     * @param path of the file
+     * @param lowerFrequency lower edge of the window [MHz]
+     * @param upperFrequency upper edge of the window [MHz]
+     * @return the spectrum covering the window
+     * @throws IOException if the format is unknown, or the file cannot be read or is malformed,
+     * or no sample is in the window
+     */
+    public static SpectrumData read(Path path, double lowerFrequency, double upperFrequency) throws IOException {
+        return readerOf(path).read(path, lowerFrequency, upperFrequency);
+    }
+
+    /**
+     * Detects the format of the file.
+     *
+     * @param path of the file
+     * @return the reader of the format
+     * @throws IOException if the format is unknown, or the file cannot be read
+     */
+    public static SpectrumDataReader readerOf(Path path) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEAD_BYTES);
+        try (FileChannel channel = FileChannel.open(path)) {
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // read till the head is full or end of file
+            }
+        }
+        head.flip();
+        for (SpectrumDataReader reader : readers) {
+            if (reader.canRead(path, head.asReadOnlyBuffer())) {
+                return reader;
+            }
+        }
+        throw new IOException("unknown format of spectrum file: " + path);
+    }
+
+    /**
+     * Returns the name omitted the extension.
+     *
+     * @param path of the file
+     * @param extension to be omitted, e.g. ".csv"
+     * @return the file name omitted the extension if ends with it, otherwise the file name
+     */
+    static String baseNameOf(Path path, String extension) {
+        String name = path.getFileName().toString();
+        if (name.length() > extension.length() && name.toLowerCase().endsWith(extension)) {
+            return name.substring(0, name.length() - extension.length());
+        }
+        return name;
+    }
+
+    /**
+     * @param maxPower max power of the spectrum [dBm]
+     * @return reference level to encode the spectrum, max power rounded up by 10dB [dBm]
+     */
+    static float referenceLevelFor(double maxPower) {
+        return (float) (Math.ceil(maxPower / 10) * 10);
+    }
+
+    /**
+     * @param minPower min power of the spectrum [dBm]
+     * @param referenceLevel to encode the spectrum [dBm]
+     * @return scale to encode the spectrum, covering the min power in 10 divisions by 1dB steps [dB/DIV]
+     */
+    static float scaleFor(double minPower, float referenceLevel) {
+        return (float) Math.max(1, Math.ceil((referenceLevel - minPower) / 10));
+    }
+}
@@ -0,0 +1,131 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntSupplier;
+
+/**
+ * Write data file of the layout read by {@link SpectrumDataParser}.
+ *
+ * Samples are written through fixed size direct buffers chunk by chunk, so that the number of samples is not
+ * limited by the size of memory. The header and a few chunks are written together by one gathering write.
+ */
+public class SpectrumDataWriter {
+    private static final int HEADER_BYTES = 32;
+    private static final int CHUNK_SAMPLES = 16 * 1024;
+    private static final int GATHER_CHUNKS = 4;
+
+    private SpectrumDataWriter() {
+    }
+
+    /**
+     * Writes a data file with samples supplied one by one.
+     *
+     * @param path of file to be written, replaced if exists
+     * @param numSamples number of samples
+     * @param startFrequency [MHz]
+     * @param stopFrequency [MHz]
+     * @param referenceLevel [dBm]
+     * @param scale [dBm/DIV]
+     * @param codes supplies encoded power[0,255] of each sample in order of frequency
+     * @throws IOException if the file failed to write
+     */
+    public static void write(
+            Path path, long numSamples, double startFrequency, double stopFrequency, float referenceLevel, float scale,
+            IntSupplier codes
+    ) throws IOException {
+        write(path, numSamples, startFrequency, stopFrequency, referenceLevel, scale, (chunk, from, count) -> {
+            for (int i = 0; i < count; i++) {
+                chunk.putInt(codes.getAsInt());
+            }
+        });
+    }
+
+    /**
+     * Writes the spectrum to a data file, which is read back to the same content.
+     *
+     * @param path of file to be written, replaced if exists
+     * @param data spectrum to be written
+     * @throws IOException if the file failed to write
+     */
+    public static void write(Path path, SpectrumData data) throws IOException {
+        try (var stage = PerformanceMonitor.begin("write", path.toString())) {
+            stage.setSamples(data.size());
+            byte[] codes = data.getPowersAsBytes();
+            write(path, codes.length, data.getStartFrequency(), data.getStopFrequency(), data.getReferenceLevel(),
+                    data.getScale(), (chunk, from, count) -> {
+                        int offset = (int) from;
+                        for (int i = 0; i < count; i++) {
+                            chunk.putInt(Byte.toUnsignedInt(codes[offset + i]));
+                        }
+                    });
+        }
+    }
+
+    private static void write(
+            Path path, long numSamples, double startFrequency, double stopFrequency, float referenceLevel, float scale,
+            ChunkFiller filler
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+        ) {
+            ByteBuffer[] buffers = new ByteBuffer[1 + GATHER_CHUNKS];
+            buffers[0] = ByteBuffer.allocateDirect(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffers[0].putLong(numSamples);
+            buffers[0].putDouble(startFrequency);
+            buffers[0].putDouble(stopFrequency);
+            buffers[0].putFloat(referenceLevel);
+            buffers[0].putFloat(scale);
+            buffers[0].flip();
+            for (int i = 1; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.allocateDirect(CHUNK_SAMPLES * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            long written = 0;
+            do {
+                for (int i = 1; i < buffers.length; i++) {
+                    int count = (int) Math.min(CHUNK_SAMPLES, numSamples - written);
+                    buffers[i].clear();
+                    filler.fill(buffers[i], written, count);
+                    buffers[i].flip();
+                    written += count;
+                }
+                writeFully(channel, buffers);
+            } while (written < numSamples);
+        }
+    }
+
+    /**
+     * Write all the content of buffers to the channel.
+     *
+     * @param channel to be written
+     * @param buffers to be read
+     * @throws IOException if the channel failed to write
+     */
+    private static void writeFully(GatheringByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    /**
+     * Puts encoded powers of samples into a chunk.
+     */
+    @FunctionalInterface
+    private interface ChunkFiller {
+        /**
+         * @param chunk to be put codes as 32bit integers
+         * @param from index of the first sample
+         * @param count number of samples to be put
+         */
+        void fill(ByteBuffer chunk, long from, int count);
+    }
+}
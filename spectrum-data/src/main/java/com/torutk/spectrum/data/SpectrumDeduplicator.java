@@ -0,0 +1,138 @@
+package com.torutk.spectrum.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Finds duplicated spectrum data files by content, regardless of the file name.
+ *
+ * <ol>
+ *     <li>Fingerprints of all files are calculated while parsing in parallel.</li>
+ *     <li>Files are indexed by the fingerprint in the order of input, a file of the fingerprint already indexed
+ *     is a candidate of duplicate of the first file of the fingerprint.</li>
+ *     <li>The content of each candidate is compared with the first file in parallel, to exclude
+ *     the collision of fingerprints.</li>
+ * </ol>
+ * Duplicates are printed to the standard output as CSV of the original file and the duplicated file.
+ * No file is moved nor deleted.
+ */
+public class SpectrumDeduplicator {
+    private static final Logger logger = Logger.getLogger(SpectrumDeduplicator.class.getName());
+
+    private final List<String> globs = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private SpectrumDeduplicator() {
+    }
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        var deduplicator = new SpectrumDeduplicator();
+        for (int i = 0; i < args.length; i++) {
+            if ("-i".equals(args[i])) {
+                deduplicator.globs.add(args[++i]);
+            } else if ("-t".equals(args[i])) {
+                deduplicator.threads = Integer.parseInt(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (deduplicator.globs.isEmpty()) {
+            System.err.println("input files must be specified.");
+            printUsageAndExit();
+        }
+        int failures = deduplicator.run();
+        if (failures > 0) {
+            System.err.printf("%d file(s) failed to process.%n", failures);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Find duplicates over all files matched to the input globs.
+     *
+     * @return the number of files failed to read
+     * @throws IOException if input files cannot be searched
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    int run() throws IOException, InterruptedException {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String glob : globs) {
+            paths.addAll(FileFinder.findAll(glob));
+        }
+        logger.info(() -> String.format("%d file(s) to be fingerprinted with %d thread(s)", paths.size(), threads));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> fingerprints = new ArrayList<>(paths.size());
+            for (Path path : paths) {
+                fingerprints.add(executor.submit(() -> SpectrumDataReaders.read(path).getFingerprint()));
+            }
+            int failures = 0;
+            Map<Long, Path> originals = new HashMap<>(paths.size() * 2);
+            List<Path[]> candidates = new ArrayList<>();
+            var pathIterator = paths.iterator();
+            for (Future<Long> future : fingerprints) {
+                Path path = pathIterator.next();
+                try {
+                    Path original = originals.putIfAbsent(future.get(), path);
+                    if (original != null) {
+                        candidates.add(new Path[]{original, path});
+                    }
+                } catch (ExecutionException ex) {
+                    logger.warning("could not read file: " + ex.getCause());
+                    failures++;
+                }
+            }
+
+            List<Future<Boolean>> verifications = new ArrayList<>(candidates.size());
+            for (Path[] candidate : candidates) {
+                verifications.add(executor.submit(() -> SpectrumDataReaders.read(candidate[0])
+                        .hasSameContent(SpectrumDataReaders.read(candidate[1]))));
+            }
+            System.out.println("Original, Duplicate");
+            int duplicates = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                try {
+                    if (verifications.get(i).get()) {
+                        System.out.printf("%s, %s%n", candidates.get(i)[0], candidates.get(i)[1]);
+                        duplicates++;
+                    } else {
+                        logger.info(String.format("fingerprint collision between %s and %s",
+                                candidates.get(i)[0], candidates.get(i)[1]));
+                    }
+                } catch (ExecutionException ex) {
+                    logger.warning("could not read file: " + ex.getCause());
+                    failures++;
+                }
+            }
+            int numDuplicates = duplicates;
+            logger.info(() -> String.format("%d duplicate(s) in %d file(s)", numDuplicates, paths.size()));
+            PerformanceMonitor.logSummary();
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    static void printUsageAndExit() {
+        System.out.println("Command line usage: -i <glob> [-i <glob> ...] [-t <threads>]");
+        System.out.println("\tglob: spectrum data files to be searched, e.g. archive/**/*.dat");
+        System.out.println("\tthreads: number of worker threads (default: number of processors)");
+        System.exit(1);
+    }
+}
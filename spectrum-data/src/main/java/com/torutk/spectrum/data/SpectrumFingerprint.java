@@ -0,0 +1,78 @@
+package com.torutk.spectrum.data;
+
+/**
+ * 64bit non-cryptographic hash of the content of a spectrum, the header and the encoded powers.
+ *
+ * Encoded powers are packed into 64bit words of 8 samples in little endian, and each word is mixed into the hash
+ * by multiply and rotate like MurmurHash, so the hash can be calculated while samples are read one by one.
+ * <pre>
+ *     long hash = SpectrumFingerprint.start(numSamples, startFrequency, stopFrequency, referenceLevel, scale);
+ *     long word = 0;
+ *     for each sample i:
+ *         word = SpectrumFingerprint.pack(word, i, code);
+ *         if (SpectrumFingerprint.isWordEnd(i)) { hash = SpectrumFingerprint.mix(hash, word); word = 0; }
+ *     long fingerprint = SpectrumFingerprint.finish(hash, word, numSamples);
+ * </pre>
+ * Spectra of different content have the same fingerprint with the probability of about 2^-64,
+ * so the content should be compared to be sure of the duplication.
+ */
+final class SpectrumFingerprint {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private SpectrumFingerprint() {
+    }
+
+    /**
+     * Calculates the fingerprint of the spectrum.
+     *
+     * @param data spectrum
+     * @return the fingerprint
+     */
+    static long of(SpectrumData data) {
+        byte[] powers = data.getPowersAsBytes();
+        long hash = start(powers.length, data.getStartFrequency(), data.getStopFrequency(),
+                data.getReferenceLevel(), data.getScale());
+        long word = 0;
+        for (int i = 0; i < powers.length; i++) {
+            word = pack(word, i, powers[i]);
+            if (isWordEnd(i)) {
+                hash = mix(hash, word);
+                word = 0;
+            }
+        }
+        return finish(hash, word, powers.length);
+    }
+
+    static long start(long numSamples, double startFrequency, double stopFrequency, float referenceLevel, float scale) {
+        long hash = mix(0, numSamples);
+        hash = mix(hash, Double.doubleToLongBits(startFrequency));
+        hash = mix(hash, Double.doubleToLongBits(stopFrequency));
+        return mix(hash, ((long) Float.floatToIntBits(referenceLevel) << 32) | Float.floatToIntBits(scale) & 0xffffffffL);
+    }
+
+    static long pack(long word, int index, byte code) {
+        return word | (long) Byte.toUnsignedInt(code) << ((index & 7) << 3);
+    }
+
+    static boolean isWordEnd(int index) {
+        return (index & 7) == 7;
+    }
+
+    static long mix(long hash, long word) {
+        long k = Long.rotateLeft(word * C1, 31) * C2;
+        return Long.rotateLeft(hash ^ k, 27) * 5 + 0x52dce729;
+    }
+
+    static long finish(long hash, long word, long numSamples) {
+        if ((numSamples & 7) != 0) {
+            hash = mix(hash, word);
+        }
+        hash ^= numSamples;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
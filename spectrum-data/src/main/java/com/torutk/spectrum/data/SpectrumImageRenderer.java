@@ -0,0 +1,150 @@
+package com.torutk.spectrum.data;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Renders a spectrum into a raster image without JavaFX, e.g. for thumbnails of many files.
+ *
+ * Each pixel column covers the samples in its frequency range, and is drawn as a vertical line
+ * from the min power to the max power of them (min/max decimation), so that peaks are not lost
+ * however many samples the spectrum has. The vertical range is same as the chart of viewer,
+ * from reference level to 10 divisions of scale below.
+ *
+ * The renderer has no mutable state, so an instance can be shared by threads.
+ */
+public class SpectrumImageRenderer {
+    private static final int DIVISIONS = 10;
+
+    private final int width;
+    private final int height;
+    private final int backgroundColor;
+    private final int gridColor;
+    private final int traceColor;
+
+    /**
+     * Constructor with image size, in the default colors.
+     *
+     * @param width of image [pixel]
+     * @param height of image [pixel]
+     */
+    public SpectrumImageRenderer(int width, int height) {
+        this(width, height, 0xFFFFFF, 0xDCDCDC, 0x1F5FBF);
+    }
+
+    /**
+     * Constructor with image size and colors.
+     *
+     * @param width of image [pixel]
+     * @param height of image [pixel]
+     * @param backgroundColor background color as 0xRRGGBB
+     * @param gridColor grid color as 0xRRGGBB
+     * @param traceColor trace color as 0xRRGGBB
+     */
+    public SpectrumImageRenderer(int width, int height, int backgroundColor, int gridColor, int traceColor) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(String.format("invalid image size %dx%d", width, height));
+        }
+        this.width = width;
+        this.height = height;
+        this.backgroundColor = backgroundColor;
+        this.gridColor = gridColor;
+        this.traceColor = traceColor;
+    }
+
+    /**
+     * Renders the specified powers of the spectrum.
+     *
+     * @param data the spectrum supplying frequency range, reference level and scale
+     * @param powers processed powers of the spectrum (e.g. detrended, filtered) [dBm]
+     * @return rendered image
+     */
+    public BufferedImage render(SpectrumData data, float[] powers) {
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, backgroundColor);
+        drawGrid(pixels);
+        if (powers.length == 0) {
+            return image;
+        }
+        float top = data.getReferenceLevel();
+        float bottom = top - data.getScale() * DIVISIONS;
+        int previousTop = -1;
+        int previousBottom = -1;
+        for (int x = 0; x < width; x++) {
+            int from = (int) ((long) x * powers.length / width);
+            int to = Math.max(from + 1, (int) ((long) (x + 1) * powers.length / width));
+            float min = powers[from];
+            float max = min;
+            for (int i = from + 1; i < to; i++) {
+                min = Math.min(min, powers[i]);
+                max = Math.max(max, powers[i]);
+            }
+            int yTop = toY(max, top, bottom);
+            int yBottom = toY(min, top, bottom);
+            if (previousTop >= 0) { // connect to previous column
+                yTop = Math.min(yTop, previousBottom);
+                yBottom = Math.max(yBottom, previousTop);
+            }
+            drawVerticalLine(pixels, x, yTop, yBottom);
+            previousTop = toY(max, top, bottom);
+            previousBottom = toY(min, top, bottom);
+        }
+        return image;
+    }
+
+    /**
+     * Renders the specified powers of the spectrum, then write to the file as PNG.
+     *
+     * @param data the spectrum supplying frequency range, reference level and scale
+     * @param powers processed powers of the spectrum [dBm]
+     * @param file to be written
+     * @throws IOException if the file failed to write
+     */
+    public void renderAsPng(SpectrumData data, float[] powers, Path file) throws IOException {
+        try (var stage = PerformanceMonitor.begin("render", file.toString());
+             OutputStream out = Files.newOutputStream(file)) {
+            stage.setSamples(powers.length);
+            BufferedImage image = render(data, powers);
+            if (!ImageIO.write(image, "png", out)) {
+                throw new IOException("no PNG writer available");
+            }
+        }
+    }
+
+    private int toY(float power, float top, float bottom) {
+        int y = Math.round((top - power) / (top - bottom) * (height - 1));
+        return Math.max(0, Math.min(height - 1, y));
+    }
+
+    private void drawGrid(int[] pixels) {
+        for (int division = 1; division < DIVISIONS; division++) {
+            int y = division * (height - 1) / DIVISIONS;
+            Arrays.fill(pixels, y * width, (y + 1) * width, gridColor);
+            int x = division * (width - 1) / DIVISIONS;
+            for (int row = 0; row < height; row++) {
+                pixels[row * width + x] = gridColor;
+            }
+        }
+    }
+
+    private void drawVerticalLine(int[] pixels, int x, int yFrom, int yTo) {
+        for (int y = yFrom; y <= yTo; y++) {
+            pixels[y * width + x] = traceColor;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,244 @@
+package com.torutk.spectrum.data;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Per-sample kernels over the whole trace of a spectrum, decode, encode, detrend, unit conversion and reduction.
+ *
+ * A trace of {@link #SEQUENTIAL_THRESHOLD} samples or more is split into chunks of {@link #CHUNK_SAMPLES},
+ * small enough that the input and output of a chunk stay in L2 cache, and the chunks are computed by fork/join
+ * in the pool of the calling thread, the common pool unless called from another fork/join pool.
+ * A smaller trace is computed sequentially by the calling thread, where forking costs more than it saves.
+ *
+ * The inner loops are simple counted loops over arrays without calls, so that the JIT can vectorize them.
+ * The kernels calculate bit-identical values to the per-sample methods of {@link SpectrumData},
+ * except the reductions whose sums are added in order of chunks, which is deterministic for the same size,
+ * and the detrend on the same frequency grid described below.
+ */
+final class SpectrumKernels {
+    static final int CHUNK_SAMPLES = 16 * 1024;
+    static final int SEQUENTIAL_THRESHOLD = 128 * 1024;
+
+    private SpectrumKernels() {
+    }
+
+    /**
+     * Computation of a range of samples.
+     *
+     * @param <T> type of the partial result
+     */
+    @FunctionalInterface
+    interface RangeKernel<T> {
+        /**
+         * @param from first sample (inclusive)
+         * @param to last sample (exclusive)
+         * @return partial result of the range
+         */
+        T apply(int from, int to);
+    }
+
+    /**
+     * Computes the kernel over samples [0, size), sequentially or by chunks in parallel by the size.
+     *
+     * @param size number of samples
+     * @param kernel computation of a range
+     * @param combiner to combine partial results of adjacent ranges, left and right
+     * @param <T> type of the result
+     * @return the result combined in order of ranges
+     */
+    static <T> T compute(int size, RangeKernel<T> kernel, BinaryOperator<T> combiner) {
+        if (size < SEQUENTIAL_THRESHOLD) {
+            return kernel.apply(0, size);
+        }
+        return new ChunkTask<>(kernel, combiner, 0, size).invoke();
+    }
+
+    private static void forEachChunk(int size, RangeKernel<Void> kernel) {
+        compute(size, kernel, (left, right) -> null);
+    }
+
+    /**
+     * Decodes powers, same as {@link SpectrumData#decode(byte)} of each code.
+     *
+     * @param codes encoded powers
+     * @param referenceLevel [dBm]
+     * @param scale [dBm/DIV]
+     * @return decoded powers [dBm]
+     */
+    static float[] decode(byte[] codes, float referenceLevel, float scale) {
+        float[] powers = new float[codes.length];
+        float scale10 = scale * 10;
+        forEachChunk(codes.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                powers[i] = referenceLevel - scale10 * (codes[i] & 0xff) / 255;
+            }
+            return null;
+        });
+        return powers;
+    }
+
+    /**
+     * Encodes powers, same as {@link SpectrumData#encode(double, float, float)} of each power.
+     *
+     * @param powers [dBm]
+     * @param referenceLevel [dBm]
+     * @param scale [dBm/DIV]
+     * @return encoded powers
+     */
+    static byte[] encode(float[] powers, float referenceLevel, float scale) {
+        byte[] codes = new byte[powers.length];
+        forEachChunk(powers.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                codes[i] = SpectrumData.encode(powers[i], referenceLevel, scale);
+            }
+            return null;
+        });
+        return codes;
+    }
+
+    /**
+     * Calculates frequencies of samples, same as {@link SpectrumData#getFrequencyAt(int)} of each index.
+     *
+     * @param startFrequency [MHz]
+     * @param stopFrequency [MHz]
+     * @param size number of samples
+     * @return frequencies [MHz]
+     */
+    static float[] frequencies(double startFrequency, double stopFrequency, int size) {
+        float[] frequencies = new float[size];
+        float start = (float) startFrequency;
+        float span = (float) stopFrequency - start;
+        forEachChunk(size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                frequencies[i] = start + span * i / size;
+            }
+            return null;
+        });
+        return frequencies;
+    }
+
+    /**
+     * Subtracts the bias of the detrend spectrum from decoded powers, same as
+     * {@link SpectrumData#getPowersDetrend(SpectrumData)}.
+     * The bias of each detrend code is calculated once, so that the loop has no decode nor call.
+     * If both spectra are on the same frequency grid, samples are subtracted by index without frequency lookup,
+     * which matches the sample exactly while the lookup by float frequency may miss it by one sample.
+     *
+     * @param data spectrum to be detrended
+     * @param detrend detrend spectrum
+     * @return detrended powers [dBm]
+     */
+    static float[] detrend(SpectrumData data, SpectrumData detrend) {
+        float[] powerOfCode = new float[256];
+        double[] biasOfCode = new double[256];
+        float average = detrend.getAveragePower();
+        for (int code = 0; code < 256; code++) {
+            powerOfCode[code] = data.decode((byte) code);
+            biasOfCode[code] = detrend.decode((byte) code) - average; // on float as getPowerAt - average
+        }
+        byte[] codes = data.getPowersAsBytes();
+        byte[] detrendCodes = detrend.getPowersAsBytes();
+        float[] powers = new float[codes.length];
+        if (data.getStartFrequency() == detrend.getStartFrequency()
+                && data.getStopFrequency() == detrend.getStopFrequency()
+                && codes.length == detrendCodes.length) {
+            forEachChunk(codes.length, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    powers[i] = (float) (powerOfCode[codes[i] & 0xff] - biasOfCode[detrendCodes[i] & 0xff]);
+                }
+                return null;
+            });
+            return powers;
+        }
+        float start = (float) data.getStartFrequency();
+        float span = (float) data.getStopFrequency() - start;
+        int size = codes.length;
+        double detrendStart = detrend.getStartFrequency();
+        double detrendStop = detrend.getStopFrequency();
+        double detrendRate = detrend.getSamplingRate();
+        int detrendLast = detrendCodes.length - 1;
+        forEachChunk(size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                float frequency = start + span * i / size;
+                float power = powerOfCode[codes[i] & 0xff];
+                if (detrendStart <= frequency && frequency <= detrendStop) {
+                    int index = Math.min((int) Math.floor((frequency - detrendStart) / detrendRate), detrendLast);
+                    powers[i] = (float) (power - biasOfCode[detrendCodes[index] & 0xff]);
+                } else {
+                    powers[i] = power;
+                }
+            }
+            return null;
+        });
+        return powers;
+    }
+
+    /**
+     * Counts samples of each code, to reduce a spectrum by a lookup table of 256 codes.
+     *
+     * @param codes encoded powers
+     * @return the number of samples of each code
+     */
+    static int[] histogram(byte[] codes) {
+        return compute(codes.length, (from, to) -> {
+            int[] counts = new int[256];
+            for (int i = from; i < to; i++) {
+                counts[codes[i] & 0xff]++;
+            }
+            return counts;
+        }, (left, right) -> {
+            for (int code = 0; code < left.length; code++) {
+                left[code] += right[code];
+            }
+            return left;
+        });
+    }
+
+    /**
+     * Converts powers to mW and sums them.
+     *
+     * @param powers [dBm]
+     * @return total power [mW]
+     */
+    static double sumMilliwatt(float[] powers) {
+        return compute(powers.length, (from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += SpectrumData.toMilliwatt(powers[i]);
+            }
+            return sum;
+        }, Double::sum);
+    }
+
+    /**
+     * Splits a range into halves till a chunk, and combines results of halves.
+     */
+    private static class ChunkTask<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeKernel<T> kernel;
+        private final BinaryOperator<T> combiner;
+        private final int from;
+        private final int to;
+
+        ChunkTask(RangeKernel<T> kernel, BinaryOperator<T> combiner, int from, int to) {
+            this.kernel = kernel;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= CHUNK_SAMPLES) {
+                return kernel.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            var right = new ChunkTask<>(kernel, combiner, middle, to);
+            right.fork();
+            T left = new ChunkTask<>(kernel, combiner, from, middle).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+}
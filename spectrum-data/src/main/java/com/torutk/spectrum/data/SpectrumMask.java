@@ -0,0 +1,243 @@
+package com.torutk.spectrum.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limit line of power over frequency, to find the ranges of spectra exceeding it.
+ *
+ * A mask is made from a baseline, a reference spectrum or the max hold envelope of spectra, plus a margin.
+ * To check a spectrum, the limit line is compiled once for each frequency grid and encoding of spectra
+ * into the encoded power of each sample, so a spectrum is checked by comparing codes in one pass
+ * without decoding. Compiled limits are cached, an instance can be shared by threads.
+ */
+public class SpectrumMask {
+    private static final double CODE_TOLERANCE = 1e-3; // a power equal to the limit in float is not a violation
+
+    private final String name;
+    private final double startFrequency;
+    private final double stopFrequency;
+    private final float[] limits;
+    private final Map<Grid, Compiled> compiledCache = new ConcurrentHashMap<>();
+
+    private SpectrumMask(String name, double startFrequency, double stopFrequency, float[] limits) {
+        this.name = name;
+        this.startFrequency = startFrequency;
+        this.stopFrequency = stopFrequency;
+        this.limits = limits;
+    }
+
+    /**
+     * Creates a mask of the reference spectrum plus the margin.
+     *
+     * @param reference baseline spectrum
+     * @param margin allowed power above the baseline [dB]
+     * @return the mask on the frequency grid of the reference
+     */
+    public static SpectrumMask ofReference(SpectrumData reference, double margin) {
+        return ofMaxHold(List.of(reference), margin);
+    }
+
+    /**
+     * Creates a mask of the max hold envelope of the spectra plus the margin.
+     * Spectra on other frequency grid than the first one are sampled at the frequencies of the first one.
+     *
+     * @param spectra baseline spectra
+     * @param margin allowed power above the baseline [dB]
+     * @return the mask on the frequency grid of the first spectrum
+     */
+    public static SpectrumMask ofMaxHold(Collection<SpectrumData> spectra, double margin) {
+        if (spectra.isEmpty()) {
+            throw new IllegalArgumentException("no baseline spectrum");
+        }
+        SpectrumData first = spectra.iterator().next();
+        float[] envelope = new float[first.size()];
+        Arrays.fill(envelope, Float.NEGATIVE_INFINITY);
+        for (SpectrumData data : spectra) {
+            byte[] codes = data.getPowersAsBytes();
+            boolean sameGrid = data.size() == first.size()
+                    && data.getStartFrequency() == first.getStartFrequency()
+                    && data.getStopFrequency() == first.getStopFrequency();
+            for (int i = 0; i < envelope.length; i++) {
+                float power;
+                if (sameGrid) {
+                    power = data.decode(codes[i]);
+                } else {
+                    float frequency = (float) centerFrequencyOf(first, i);
+                    if (!data.containsFrequency(frequency)) {
+                        continue;
+                    }
+                    power = data.getPowerAt(frequency);
+                }
+                envelope[i] = Math.max(envelope[i], power);
+            }
+        }
+        for (int i = 0; i < envelope.length; i++) {
+            envelope[i] += margin;
+        }
+        String name = spectra.size() == 1 ? first.getName() : first.getName() + "+" + (spectra.size() - 1);
+        return new SpectrumMask(name, first.getStartFrequency(), first.getStopFrequency(), envelope);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getStartFrequency() {
+        return startFrequency;
+    }
+
+    public double getStopFrequency() {
+        return stopFrequency;
+    }
+
+    /**
+     * Returns the limit at the specified frequency.
+     *
+     * @param frequency [MHz]
+     * @return limit [dBm], NaN if out of the mask
+     */
+    public double getLimitAt(double frequency) {
+        if (frequency < startFrequency || frequency > stopFrequency) {
+            return Double.NaN;
+        }
+        return limits[indexOf(frequency)];
+    }
+
+    private int indexOf(double frequency) {
+        int index = (int) Math.floor((frequency - startFrequency) / (stopFrequency - startFrequency) * limits.length);
+        return Math.max(0, Math.min(index, limits.length - 1));
+    }
+
+    /**
+     * Checks the spectrum against this mask.
+     *
+     * @param data spectrum to be checked
+     * @param timestamp time of the spectrum swept, recorded in violations
+     * @return violations in order of frequency, empty if none
+     */
+    public List<MaskViolation> check(SpectrumData data, Instant timestamp) {
+        try (var stage = PerformanceMonitor.begin("mask", data.getName())) {
+            stage.setSamples(data.size());
+            Compiled compiled = compiledCache.computeIfAbsent(new Grid(data), grid -> compile(data));
+            return compiled.check(data, timestamp);
+        }
+    }
+
+    /**
+     * Compiles the limit line into the encoded power of each sample of the spectrum.
+     * A sample is above the limit if its code is less than the compiled code, since the encoded power is reversed.
+     */
+    private Compiled compile(SpectrumData data) {
+        int n = data.size();
+        int[] thresholds = new int[n];
+        float[] sampleLimits = new float[n];
+        double codesPerDb = 255 / (10 * data.getScale());
+        for (int i = 0; i < n; i++) {
+            double limit = getLimitAt(centerFrequencyOf(data, i));
+            sampleLimits[i] = (float) limit;
+            if (Double.isNaN(limit)) {
+                thresholds[i] = 0; // no code is less than 0, out of the mask never violates
+            } else {
+                double code = (data.getReferenceLevel() - limit) * codesPerDb - CODE_TOLERANCE;
+                thresholds[i] = (int) Math.max(0, Math.min(256, Math.ceil(code)));
+            }
+        }
+        return new Compiled(thresholds, sampleLimits);
+    }
+
+    /**
+     * Returns the center frequency of the sample in double precision,
+     * since the float frequency of {@link SpectrumData#getFrequencyAt(int)} may be rounded to the next sample.
+     */
+    private static double centerFrequencyOf(SpectrumData data, int index) {
+        return data.getStartFrequency() + data.getSamplingRate() * (index + 0.5);
+    }
+
+    /**
+     * Limit line compiled for a frequency grid and encoding.
+     */
+    private static class Compiled {
+        private final int[] thresholds;
+        private final float[] limits;
+
+        Compiled(int[] thresholds, float[] limits) {
+            this.thresholds = thresholds;
+            this.limits = limits;
+        }
+
+        List<MaskViolation> check(SpectrumData data, Instant timestamp) {
+            byte[] codes = data.getPowersAsBytes();
+            List<MaskViolation> violations = new ArrayList<>();
+            int i = 0;
+            while (i < codes.length) {
+                if (Byte.toUnsignedInt(codes[i]) >= thresholds[i]) {
+                    i++;
+                    continue;
+                }
+                int from = i;
+                int peak = i;
+                float maxExcess = Float.NEGATIVE_INFINITY;
+                while (i < codes.length && Byte.toUnsignedInt(codes[i]) < thresholds[i]) {
+                    float excess = data.decode(codes[i]) - limits[i];
+                    if (excess > maxExcess) {
+                        maxExcess = excess;
+                        peak = i;
+                    }
+                    i++;
+                }
+                violations.add(new MaskViolation(
+                        data.getName(), timestamp, frequencyOf(data, from), frequencyOf(data, i),
+                        frequencyOf(data, peak), maxExcess
+                ));
+            }
+            return violations;
+        }
+
+        private static double frequencyOf(SpectrumData data, int index) {
+            return data.getStartFrequency() + data.getSamplingRate() * index;
+        }
+    }
+
+    /**
+     * Frequency grid and encoding of spectra, the key of compiled limits.
+     */
+    private static class Grid {
+        private final double startFrequency;
+        private final double stopFrequency;
+        private final int size;
+        private final float referenceLevel;
+        private final float scale;
+
+        Grid(SpectrumData data) {
+            startFrequency = data.getStartFrequency();
+            stopFrequency = data.getStopFrequency();
+            size = data.size();
+            referenceLevel = data.getReferenceLevel();
+            scale = data.getScale();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Grid grid = (Grid) o;
+            return Double.compare(grid.startFrequency, startFrequency) == 0
+                    && Double.compare(grid.stopFrequency, stopFrequency) == 0
+                    && size == grid.size
+                    && Float.compare(grid.referenceLevel, referenceLevel) == 0
+                    && Float.compare(grid.scale, scale) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startFrequency, stopFrequency, size, referenceLevel, scale);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.torutk.spectrum.data;
+
+import java.util.Random;
+
+/**
+ * Compact sketch of the shape of a spectrum trace, to find similar sweeps by {@link SimilarityIndex}.
+ *
+ * The trace is downsampled to {@link #DIMENSIONS} max powers over its frequency range by {@link PowerEnvelope},
+ * not to lose narrow carriers, then normalized to zero mean and unit length, so that the cosine similarity of
+ * sketches is the correlation of shapes regardless of the gain and the reference level.
+ * The signature is the signs of the vector projected on 64 fixed random hyperplanes, whose Hamming distance
+ * estimates the angle between vectors, to find candidates without comparing vectors.
+ */
+public class SpectrumSketch {
+    public static final int DIMENSIONS = 128;
+    private static final int SIGNATURE_BITS = Long.SIZE;
+    private static final float[][] HYPERPLANES = createHyperplanes(new Random(0x5eed));
+
+    private final float[] vector;
+    private final long signature;
+
+    private SpectrumSketch(float[] vector, long signature) {
+        this.vector = vector;
+        this.signature = signature;
+    }
+
+    private static float[][] createHyperplanes(Random random) {
+        float[][] planes = new float[SIGNATURE_BITS][DIMENSIONS];
+        for (float[] plane : planes) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                plane[i] = (float) random.nextGaussian();
+            }
+        }
+        return planes;
+    }
+
+    /**
+     * Makes the sketch of the spectrum.
+     *
+     * @param data spectrum
+     * @return the sketch, of zero vector if the trace is flat
+     */
+    public static SpectrumSketch of(SpectrumData data) {
+        var envelope = PowerEnvelope.of(data, data.getStartFrequency(), data.getStopFrequency(), DIMENSIONS);
+        float[] vector = new float[DIMENSIONS];
+        double sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = envelope.getMaxPower(i);
+            sum += vector[i];
+        }
+        float mean = (float) (sum / DIMENSIONS);
+        double squared = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] -= mean;
+            squared += vector[i] * vector[i];
+        }
+        if (squared > 0) {
+            float norm = (float) Math.sqrt(squared);
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] /= norm;
+            }
+        }
+        long signature = 0;
+        for (int bit = 0; bit < SIGNATURE_BITS; bit++) {
+            if (dot(HYPERPLANES[bit], vector) >= 0) {
+                signature |= 1L << bit;
+            }
+        }
+        return new SpectrumSketch(vector, signature);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return signs of the projections on random hyperplanes, a bit per hyperplane
+     */
+    public long getSignature() {
+        return signature;
+    }
+
+    /**
+     * @param other sketch
+     * @return the number of different bits of signatures, 0-64, which estimates the angle between vectors
+     */
+    public int hammingDistance(SpectrumSketch other) {
+        return Long.bitCount(signature ^ other.signature);
+    }
+
+    /**
+     * @param other sketch
+     * @return cosine similarity of the normalized vectors, -1 to 1, 1 for the same shape
+     */
+    public double similarity(SpectrumSketch other) {
+        return dot(vector, other.vector);
+    }
+}
@@ -0,0 +1,91 @@
+package com.torutk.spectrum.data;
+
+/**
+ * Summary statistics of one spectrum's powers.
+ *
+ * The average power is calculated on mW scale, not dBm, same as {@link SpectrumData#getAveragePower()}.
+ */
+public class SpectrumStatistics {
+    private final String name;
+    private final int size;
+    private final float minPower;
+    private final float maxPower;
+    private final float averagePower;
+    private final float maxPowerFrequency;
+
+    private SpectrumStatistics(
+            String name, int size, float minPower, float maxPower, float averagePower, float maxPowerFrequency
+    ) {
+        this.name = name;
+        this.size = size;
+        this.minPower = minPower;
+        this.maxPower = maxPower;
+        this.averagePower = averagePower;
+        this.maxPowerFrequency = maxPowerFrequency;
+    }
+
+    /**
+     * Calculate statistics of the specified powers.
+     *
+     * @param name of the spectrum
+     * @param frequencies frequency of each sample [MHz]
+     * @param powers power of each sample [dBm]
+     * @return calculated statistics
+     */
+    public static SpectrumStatistics of(String name, float[] frequencies, float[] powers) {
+        assert frequencies.length == powers.length;
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        int maxIndex = 0;
+        for (int i = 0; i < powers.length; i++) {
+            float power = powers[i];
+            min = Math.min(min, power);
+            if (power > max) {
+                max = power;
+                maxIndex = i;
+            }
+        }
+        double sumMilliwatt = SpectrumKernels.sumMilliwatt(powers);
+        float average = powers.length == 0 ? Float.NaN : (float) SpectrumData.toDbm(sumMilliwatt / powers.length);
+        float maxFrequency = powers.length == 0 ? Float.NaN : frequencies[maxIndex];
+        return new SpectrumStatistics(name, powers.length, min, max, average, maxFrequency);
+    }
+
+    /**
+     * @return the header line of {@link #toCsv()}
+     */
+    public static String csvHeader() {
+        return "Name, Samples, Min[dBm], Max[dBm], Average[dBm], MaxFrequency[MHz]";
+    }
+
+    /**
+     * @return this statistics as one CSV line
+     */
+    public String toCsv() {
+        return String.format("%s, %d, %f, %f, %f, %f", name, size, minPower, maxPower, averagePower, maxPowerFrequency);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getMinPower() {
+        return minPower;
+    }
+
+    public float getMaxPower() {
+        return maxPower;
+    }
+
+    public float getAveragePower() {
+        return averagePower;
+    }
+
+    public float getMaxPowerFrequency() {
+        return maxPowerFrequency;
+    }
+}
@@ -0,0 +1,7 @@
+module com.torutk.spectrum.data {
+    requires transitive java.desktop;
+    requires java.logging;
+    requires transitive jdk.jfr;
+    exports com.torutk.spectrum.data;
+    uses com.torutk.spectrum.data.SpectrumDataReader;
+}
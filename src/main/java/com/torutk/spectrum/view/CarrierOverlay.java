@@ -0,0 +1,49 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.Carrier;
+import javafx.collections.ListChangeListener;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the peak and the 3dB bandwidth of detected carriers over the chart.
+ */
+class CarrierOverlay extends ChartOverlay {
+    private static final Color CARRIER_COLOR = Color.DARKORANGE;
+    private static final double HALF_POWER_DB = 3;
+
+    private final SpectrumFileViewModel model;
+
+    CarrierOverlay(NumberAxis xAxis, NumberAxis yAxis, SpectrumFileViewModel model) {
+        super(xAxis, yAxis);
+        this.model = model;
+        model.getCarriers().addListener((ListChangeListener<Carrier>) change -> redraw());
+    }
+
+    @Override
+    protected void draw(GraphicsContext gc) {
+        gc.setStroke(CARRIER_COLOR);
+        gc.setFill(CARRIER_COLOR);
+        gc.setLineWidth(1);
+        for (Carrier carrier : model.getCarriers()) {
+            if (carrier.getCenterFrequency() + carrier.getBandwidth() / 2 < getLowerFrequency()
+                    || carrier.getCenterFrequency() - carrier.getBandwidth() / 2 > getUpperFrequency()) {
+                continue;
+            }
+            drawCarrier(gc, carrier);
+        }
+    }
+
+    private void drawCarrier(GraphicsContext gc, Carrier carrier) {
+        double x = toX(carrier.getPeakFrequency());
+        double y = toY(carrier.getPeakPower());
+        gc.fillPolygon(new double[]{x - 4, x, x + 4}, new double[]{y - 8, y - 2, y - 8}, 3);
+        double halfPowerY = Math.floor(toY(carrier.getPeakPower() - HALF_POWER_DB)) + 0.5;
+        double left = toX(carrier.getCenterFrequency() - carrier.getBandwidth() / 2);
+        double right = toX(carrier.getCenterFrequency() + carrier.getBandwidth() / 2);
+        gc.strokeLine(left, halfPowerY, right, halfPowerY);
+        gc.strokeLine(left, halfPowerY - 3, left, halfPowerY + 3);
+        gc.strokeLine(right, halfPowerY - 3, right, halfPowerY + 3);
+    }
+}
@@ -0,0 +1,129 @@
+package com.torutk.spectrum.view;
+
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.layout.Pane;
+
+/**
+ * Transparent layer stacked over the chart, to draw on the plot area by frequency and power coordinates.
+ *
+ * The drawing is done on a canvas by {@link #draw(GraphicsContext)}, and redrawn when the axes are moved or resized.
+ * Subclasses call {@link #redraw()} when their own contents are changed.
+ */
+abstract class ChartOverlay extends Pane {
+    private final Canvas canvas = new Canvas();
+    private final NumberAxis xAxis;
+    private final NumberAxis yAxis;
+
+    ChartOverlay(NumberAxis xAxis, NumberAxis yAxis) {
+        this.xAxis = xAxis;
+        this.yAxis = yAxis;
+        setMouseTransparent(true);
+        getChildren().add(canvas);
+        canvas.widthProperty().bind(widthProperty());
+        canvas.heightProperty().bind(heightProperty());
+        InvalidationListener redrawListener = obs -> redraw();
+        canvas.widthProperty().addListener(redrawListener);
+        canvas.heightProperty().addListener(redrawListener);
+        xAxis.lowerBoundProperty().addListener(redrawListener);
+        xAxis.upperBoundProperty().addListener(redrawListener);
+        xAxis.boundsInParentProperty().addListener(redrawListener);
+        yAxis.lowerBoundProperty().addListener(redrawListener);
+        yAxis.upperBoundProperty().addListener(redrawListener);
+        yAxis.boundsInParentProperty().addListener(redrawListener);
+    }
+
+    /**
+     * Clear the canvas, then draw contents clipped in the plot area.
+     */
+    final void redraw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (getScene() == null || getUpperFrequency() <= getLowerFrequency()) {
+            return;
+        }
+        gc.save();
+        gc.beginPath();
+        gc.rect(getPlotLeft(), getPlotTop(), getPlotRight() - getPlotLeft(), getPlotBottom() - getPlotTop());
+        gc.clip();
+        draw(gc);
+        gc.restore();
+    }
+
+    /**
+     * Draw contents of this overlay.
+     *
+     * @param gc graphics context of the canvas, already cleared and clipped to the plot area
+     */
+    protected abstract void draw(GraphicsContext gc);
+
+    double getLowerFrequency() {
+        return xAxis.getLowerBound();
+    }
+
+    double getUpperFrequency() {
+        return xAxis.getUpperBound();
+    }
+
+    double getBottomPower() {
+        return yAxis.getLowerBound();
+    }
+
+    double getTopPower() {
+        return yAxis.getUpperBound();
+    }
+
+    /**
+     * @param frequency [MHz]
+     * @return x coordinate in this overlay
+     */
+    double toX(double frequency) {
+        double span = getUpperFrequency() - getLowerFrequency();
+        return getPlotLeft() + (frequency - getLowerFrequency()) / span * (getPlotRight() - getPlotLeft());
+    }
+
+    /**
+     * @param power [dBm]
+     * @return y coordinate in this overlay
+     */
+    double toY(double power) {
+        double range = yAxis.getUpperBound() - yAxis.getLowerBound();
+        return getPlotTop() + (yAxis.getUpperBound() - power) / range * (getPlotBottom() - getPlotTop());
+    }
+
+    /**
+     * @param x coordinate in this overlay
+     * @return frequency [MHz]
+     */
+    double toFrequency(double x) {
+        double span = getUpperFrequency() - getLowerFrequency();
+        return getLowerFrequency() + (x - getPlotLeft()) / (getPlotRight() - getPlotLeft()) * span;
+    }
+
+    double getPlotLeft() {
+        return xAxisBounds().getMinX();
+    }
+
+    double getPlotRight() {
+        return xAxisBounds().getMaxX();
+    }
+
+    double getPlotTop() {
+        return yAxisBounds().getMinY();
+    }
+
+    double getPlotBottom() {
+        return yAxisBounds().getMaxY();
+    }
+
+    private Bounds xAxisBounds() {
+        return sceneToLocal(xAxis.localToScene(xAxis.getLayoutBounds()));
+    }
+
+    private Bounds yAxisBounds() {
+        return sceneToLocal(yAxis.localToScene(yAxis.getLayoutBounds()));
+    }
+}
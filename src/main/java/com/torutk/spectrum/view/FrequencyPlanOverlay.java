@@ -0,0 +1,112 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.FrequencyPlan;
+import javafx.beans.InvalidationListener;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.List;
+
+/**
+ * Draws channels of the frequency plan as labeled bands on the top of the chart,
+ * and the readout of the channel under the cursor.
+ *
+ * Only channels in the display range are queried from the plan, so that drawing in drag-pan does not
+ * depend on the size of the plan. Labels are omitted for channels too narrow to be labeled.
+ */
+class FrequencyPlanOverlay extends ChartOverlay {
+    private static final double BAND_HEIGHT = 16;
+    private static final double MIN_LABEL_WIDTH = 32;
+    private static final Color[] BAND_COLORS = {
+            Color.STEELBLUE.deriveColor(0, 1, 1, 0.35), Color.SEAGREEN.deriveColor(0, 1, 1, 0.35)
+    };
+    private static final Color HOVER_COLOR = Color.STEELBLUE.deriveColor(0, 1, 1, 0.12);
+    private static final Color READOUT_BACKGROUND = Color.rgb(255, 255, 255, 0.8);
+
+    private final SpectrumFileViewModel model;
+    private final Text readoutText = new Text(); // to measure the readout, not shown
+    private double hoverFrequency = Double.NaN;
+
+    FrequencyPlanOverlay(NumberAxis xAxis, NumberAxis yAxis, SpectrumFileViewModel model) {
+        super(xAxis, yAxis);
+        this.model = model;
+        InvalidationListener redrawListener = obs -> redraw();
+        model.frequencyPlanProperty().addListener(redrawListener);
+        model.usePlanProperty().addListener(redrawListener);
+        model.markerTargetProperty().addListener(redrawListener);
+    }
+
+    /**
+     * @param frequency under the cursor [MHz], NaN if the cursor is out of the chart
+     */
+    void setHoverFrequency(double frequency) {
+        hoverFrequency = frequency;
+        redraw();
+    }
+
+    @Override
+    protected void draw(GraphicsContext gc) {
+        FrequencyPlan plan = model.frequencyPlanProperty().get();
+        if (!model.usePlanProperty().get() || plan == null) {
+            return;
+        }
+        List<FrequencyPlan.Channel> channels = plan.query(getLowerFrequency(), getUpperFrequency());
+        boolean labeled = channels.size() < (getPlotRight() - getPlotLeft()) / MIN_LABEL_WIDTH * 2;
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        double top = getPlotTop();
+        for (int i = 0; i < channels.size(); i++) {
+            FrequencyPlan.Channel channel = channels.get(i);
+            double left = toX(channel.getLowerFrequency());
+            double right = Math.max(left + 1, toX(channel.getUpperFrequency()));
+            gc.setFill(BAND_COLORS[i % BAND_COLORS.length]);
+            gc.fillRect(left, top, right - left, BAND_HEIGHT);
+            if (labeled && right - left >= MIN_LABEL_WIDTH) {
+                gc.setFill(Color.BLACK);
+                gc.fillText(channel.getName(), (left + right) / 2, top + BAND_HEIGHT / 2, right - left - 2);
+            }
+        }
+        drawHover(gc, plan);
+    }
+
+    private void drawHover(GraphicsContext gc, FrequencyPlan plan) {
+        if (Double.isNaN(hoverFrequency)) {
+            return;
+        }
+        List<FrequencyPlan.Channel> channels = plan.channelsAt(hoverFrequency);
+        if (channels.isEmpty()) {
+            return;
+        }
+        var readout = new StringBuilder();
+        for (FrequencyPlan.Channel channel : channels) {
+            double left = toX(channel.getLowerFrequency());
+            double right = toX(channel.getUpperFrequency());
+            gc.setFill(HOVER_COLOR);
+            gc.fillRect(left, getPlotTop(), right - left, getPlotBottom() - getPlotTop());
+            if (readout.length() > 0) {
+                readout.append('\n');
+            }
+            readout.append(String.format("%s %.4f - %.4f MHz", channel.getName(),
+                    channel.getLowerFrequency(), channel.getUpperFrequency()));
+            double power = model.getChannelPower(channel);
+            if (!Double.isNaN(power)) {
+                readout.append(String.format(", %.2f dBm", power));
+            }
+        }
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        double x = getPlotLeft() + 4;
+        double y = getPlotTop() + BAND_HEIGHT + 4;
+        readoutText.setFont(gc.getFont());
+        readoutText.setText(readout.toString());
+        gc.setFill(READOUT_BACKGROUND);
+        gc.fillRect(x - 2, y - 2, readoutText.getLayoutBounds().getWidth() + 4,
+                readoutText.getLayoutBounds().getHeight() + 4);
+        gc.setFill(Color.BLACK);
+        gc.fillText(readout.toString(), x, y);
+    }
+}
@@ -0,0 +1,363 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.FileFinder;
+import com.torutk.spectrum.data.PersistenceGrid;
+import com.torutk.spectrum.data.PowerEnvelope;
+import com.torutk.spectrum.data.SpectrumData;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures latencies of the interactions of analysts end to end, by scripted sessions over
+ * {@link SpectrumFileViewModel} without display.
+ *
+ * A session opens files of the corpus, zooms in, pans, changes the scale, zooms out, toggles the detrend and
+ * the RC filter, exports and closes the files, each step the same as the controller does on the operation.
+ * Since a pan and a scale change do not recreate series but move the axes, the pan step prepares envelopes of
+ * the new range as the overlays and the playback do, and the scale step rebuilds the persistence display of
+ * the new power range, on a plot of {@link #PLOT_COLUMNS} x {@link #PLOT_ROWS} pixels.
+ * The median and 99th percentile of the latency, and the median of the bytes allocated by all threads,
+ * of each step are printed to the standard output as CSV, after warm up sessions.
+ * Steps are compared with a baseline file saved by a previous release, then the process exits with 2 if any step
+ * regressed more than the tolerance, so that it can be run by a build to track the performance.
+ */
+public class InteractionBenchmark {
+    private static final double SLACK_MILLIS = 5; // not to fail a step of a few milliseconds by GC pauses
+    private static final double SLACK_MEGABYTES = 1;
+    private static final int ZOOM = 16;
+    private static final int PANS = 8;
+    private static final int PLOT_COLUMNS = 1000;
+    private static final int PLOT_ROWS = 400;
+
+    private final List<String> globs = new ArrayList<>();
+    private Path detrendPath;
+    private Path exportDirectory;
+    private Path baselinePath;
+    private Path savePath;
+    private int filesPerSession = 2;
+    private int sessions = 20;
+    private int warmupSessions = 2;
+    private double tolerance = 0.5;
+
+    private final SpectrumFileViewModel model = SpectrumFileViewModel.INSTANCE;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private boolean recording;
+
+    /**
+     * Entry method.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        var benchmark = new InteractionBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            if ("-i".equals(args[i])) {
+                benchmark.globs.add(args[++i]);
+            } else if ("-d".equals(args[i])) {
+                benchmark.detrendPath = Paths.get(args[++i]);
+            } else if ("-o".equals(args[i])) {
+                benchmark.exportDirectory = Paths.get(args[++i]);
+            } else if ("-b".equals(args[i])) {
+                benchmark.baselinePath = Paths.get(args[++i]);
+            } else if ("-s".equals(args[i])) {
+                benchmark.savePath = Paths.get(args[++i]);
+            } else if ("-f".equals(args[i])) {
+                benchmark.filesPerSession = Integer.parseInt(args[++i]);
+            } else if ("-n".equals(args[i])) {
+                benchmark.sessions = Integer.parseInt(args[++i]);
+            } else if ("-w".equals(args[i])) {
+                benchmark.warmupSessions = Integer.parseInt(args[++i]);
+            } else if ("-x".equals(args[i])) {
+                benchmark.tolerance = Double.parseDouble(args[++i]);
+            } else {
+                printUsageAndExit();
+            }
+        }
+        if (benchmark.globs.isEmpty()) {
+            System.err.println("input files must be specified.");
+            printUsageAndExit();
+        }
+        int regressions = benchmark.run();
+        if (regressions > 0) {
+            System.err.printf("%d step(s) regressed from the baseline.%n", regressions);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Latencies and allocations of a step, of all recorded sessions.
+     */
+    private static class Step {
+        final String name;
+        final List<Double> millis = new ArrayList<>();
+        final List<Double> megabytes = new ArrayList<>();
+
+        Step(String name) {
+            this.name = name;
+        }
+
+        double getMillis(double percentile) {
+            return percentile(millis, percentile);
+        }
+
+        double getMegabytes() {
+            return percentile(megabytes, 0.5);
+        }
+
+        /**
+         * @return the value of the nearest rank
+         */
+        private static double percentile(List<Double> values, double percentile) {
+            double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+        }
+    }
+
+    /**
+     * Action of a step, may throw IOException.
+     */
+    private interface Action {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs warm up and measured sessions, then prints the steps and compares them with the baseline.
+     *
+     * @return the number of steps regressed from the baseline
+     * @throws IOException if input files cannot be searched or read, or the baseline cannot be read or saved
+     */
+    int run() throws IOException {
+        Set<Path> pathSet = new LinkedHashSet<>();
+        for (String glob : globs) {
+            pathSet.addAll(FileFinder.findAll(glob));
+        }
+        if (pathSet.isEmpty()) {
+            throw new IOException("no input file matched: " + globs);
+        }
+        List<Path> paths = new ArrayList<>(pathSet);
+        model.loadDetrendFromFile(detrendPath != null ? detrendPath : paths.get(0));
+        boolean temporaryExport = exportDirectory == null;
+        Path directory = temporaryExport ? Files.createTempDirectory("interaction") : exportDirectory;
+        try {
+            for (int session = 0; session < warmupSessions + sessions; session++) {
+                recording = session >= warmupSessions;
+                List<Path> opened = new ArrayList<>(filesPerSession);
+                for (int i = 0; i < filesPerSession; i++) {
+                    opened.add(paths.get((session * filesPerSession + i) % paths.size()));
+                }
+                runSession(opened, directory);
+            }
+        } finally {
+            if (temporaryExport) {
+                deleteAll(directory);
+            }
+        }
+        System.out.printf("# files=%d per session, sessions=%d, warmup=%d, processors=%d%n",
+                filesPerSession, sessions, warmupSessions, Runtime.getRuntime().availableProcessors());
+        if (savePath != null) {
+            saveBaseline(savePath);
+        }
+        return compare(baselinePath != null ? readBaseline(baselinePath) : Map.of());
+    }
+
+    private void runSession(List<Path> opened, Path directory) throws IOException {
+        measure("open", () -> {
+            for (Path path : opened) {
+                model.loadFromFile(path);
+            }
+            model.recreateAllSeries();
+        });
+        double fullStart = model.getStartFrequency();
+        double fullStop = model.getStopFrequency();
+        double center = (fullStart + fullStop) / 2;
+        double zoomedSpan = (fullStop - fullStart) / ZOOM;
+        measure("zoom in", () -> setRange(center - zoomedSpan / 2, center + zoomedSpan / 2));
+        for (int i = 0; i < PANS; i++) {
+            double shift = (i < PANS / 2 ? zoomedSpan : -zoomedSpan) / 4;
+            measure("pan", () -> {
+                setRange(model.getStartFrequency() + shift, model.getStopFrequency() + shift);
+                prepareEnvelopes();
+            });
+        }
+        double referenceLevel = model.getReferenceLevel();
+        double scale = model.getScale();
+        measure("scale", () -> {
+            model.setReferenceLevel(referenceLevel + scale * 2);
+            model.setScale(scale * 2);
+            rebuildPersistence();
+        });
+        model.setReferenceLevel(referenceLevel);
+        model.setScale(scale);
+        measure("zoom out", () -> setRange(fullStart, fullStop));
+        measure("detrend on", () -> toggle(() -> model.useDetrendProperty().set(true)));
+        measure("rc filter on", () -> toggle(() -> model.useRcFilterProperty().set(true)));
+        measure("detrend off", () -> toggle(() -> model.useDetrendProperty().set(false)));
+        measure("rc filter off", () -> toggle(() -> model.useRcFilterProperty().set(false)));
+        measure("export", () -> model.exportTo(directory));
+        measure("close", () -> model.getSpectrumDataList().stream()
+                .map(SpectrumData::getName)
+                .forEach(model::removeSpectrumData));
+    }
+
+    /**
+     * Sets the frequency range as the update button or dragging of the chart, recreating the series
+     * only if the span is changed more than twice.
+     */
+    private void setRange(double start, double stop) {
+        model.setStartFrequency(start);
+        model.setStopFrequency(stop);
+        if (model.needsRecreate()) {
+            model.recreateAllSeries();
+        }
+    }
+
+    /**
+     * Makes envelopes of the loaded spectra in the current range, as the overlays and the playback draw.
+     */
+    private void prepareEnvelopes() {
+        for (SpectrumData data : model.getAlignedSpectrumDataList()) {
+            PowerEnvelope.of(data, model.getStartFrequency(), model.getStopFrequency(), PLOT_COLUMNS);
+        }
+    }
+
+    /**
+     * Accumulates the loaded spectra into a persistence grid of the current ranges and renders it,
+     * as the persistence display rebuilds when the axes are changed.
+     */
+    private void rebuildPersistence() {
+        double topPower = model.getReferenceLevel();
+        var grid = new PersistenceGrid(model.getStartFrequency(), model.getStopFrequency(),
+                topPower - model.getScale() * 10, topPower, PLOT_COLUMNS, PLOT_ROWS);
+        model.getAlignedSpectrumDataList().forEach(grid::add);
+        int[] palette = new int[256];
+        grid.render(new int[PLOT_COLUMNS * PLOT_ROWS], palette);
+    }
+
+    /**
+     * Toggles a check box of the settings pane, which recreates all series.
+     */
+    private void toggle(Runnable change) {
+        change.run();
+        model.recreateAllSeries();
+    }
+
+    private void measure(String name, Action action) throws IOException {
+        long[] threadIds = threadBean.getAllThreadIds();
+        long[] allocatedBefore = threadBean.getThreadAllocatedBytes(threadIds);
+        long start = System.nanoTime();
+        action.run();
+        long elapsed = System.nanoTime() - start;
+        if (!recording) {
+            return;
+        }
+        Map<Long, Long> before = new HashMap<>();
+        for (int i = 0; i < threadIds.length; i++) {
+            before.put(threadIds[i], allocatedBefore[i]);
+        }
+        long[] threadIdsAfter = threadBean.getAllThreadIds();
+        long[] allocatedAfter = threadBean.getThreadAllocatedBytes(threadIdsAfter);
+        long allocated = 0;
+        for (int i = 0; i < threadIdsAfter.length; i++) {
+            if (allocatedAfter[i] >= 0) { // -1 if the thread is terminated
+                allocated += allocatedAfter[i] - Math.max(0, before.getOrDefault(threadIdsAfter[i], 0L));
+            }
+        }
+        Step step = steps.computeIfAbsent(name, Step::new);
+        step.millis.add(elapsed / 1e6);
+        step.megabytes.add(allocated / 1e6);
+    }
+
+    /**
+     * Prints the steps with the baseline, and counts the regressed steps.
+     *
+     * @param baseline p50 [ms], p99 [ms] and allocation [MB] by step name, empty if not compared
+     * @return the number of regressed steps
+     */
+    private int compare(Map<String, double[]> baseline) {
+        int regressions = 0;
+        System.out.println("Step, Count, P50[ms], P99[ms], Allocated[MB], "
+                + "Baseline P50[ms], Baseline P99[ms], Baseline Allocated[MB], Result");
+        for (Step step : steps.values()) {
+            double[] measured = {step.getMillis(0.5), step.getMillis(0.99), step.getMegabytes()};
+            double[] base = baseline.get(step.name);
+            String result = "-";
+            if (base != null) {
+                boolean regressed = measured[0] > base[0] * (1 + tolerance) + SLACK_MILLIS
+                        || measured[1] > base[1] * (1 + tolerance) + SLACK_MILLIS
+                        || measured[2] > base[2] * (1 + tolerance) + SLACK_MEGABYTES;
+                result = regressed ? "REGRESSED" : "OK";
+                if (regressed) {
+                    regressions++;
+                }
+            }
+            System.out.printf("%s, %d, %.3f, %.3f, %.3f, %s, %s%n", step.name, step.millis.size(),
+                    measured[0], measured[1], measured[2],
+                    base == null ? "-, -, -" : String.format("%.3f, %.3f, %.3f", base[0], base[1], base[2]),
+                    result);
+        }
+        return regressions;
+    }
+
+    private void saveBaseline(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("Step, P50[ms], P99[ms], Allocated[MB]");
+        for (Step step : steps.values()) {
+            lines.add(String.format("%s, %.3f, %.3f, %.3f",
+                    step.name, step.getMillis(0.5), step.getMillis(0.99), step.getMegabytes()));
+        }
+        Files.write(path, lines);
+    }
+
+    private static Map<String, double[]> readBaseline(Path path) throws IOException {
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.skip(1)
+                    .map(line -> line.split(","))
+                    .filter(fields -> fields.length == 4)
+                    .collect(Collectors.toMap(fields -> fields[0].trim(), fields -> Arrays.stream(fields, 1, 4)
+                            .mapToDouble(field -> Double.parseDouble(field.trim())).toArray()));
+        } catch (NumberFormatException ex) {
+            throw new IOException("illegal baseline file: " + path, ex);
+        }
+    }
+
+    private static void deleteAll(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void printUsageAndExit() {
+        System.out.println("Command line usage: -i <glob> [-i <glob> ...] [-d <detrend>] [-o <directory>] "
+                + "[-b <baseline>] [-s <baseline>] [-f <files>] [-n <sessions>] [-w <sessions>] [-x <tolerance>]");
+        System.out.println("\t-i glob: spectrum files opened in sessions in turn, e.g. corpus/*.dat");
+        System.out.println("\t-d detrend: detrend file, default the first input file");
+        System.out.println("\t-o directory: directory exported to, default a temporary directory deleted at the end");
+        System.out.println("\t-b baseline: baseline file to be compared with, exits with 2 if any step regressed");
+        System.out.println("\t-s baseline: baseline file to be saved of this run");
+        System.out.println("\t-f files: the number of files opened in a session, default 2");
+        System.out.println("\t-n sessions: the number of measured sessions, default 20");
+        System.out.println("\t-w sessions: the number of warm up sessions, default 2");
+        System.out.println("\t-x tolerance: allowed ratio of regression to the baseline, default 0.5");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.BandPowerIndex;
+import javafx.beans.InvalidationListener;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the marker, the delta marker and the occupied band of the marker target spectrum over the chart.
+ */
+class MarkerOverlay extends ChartOverlay {
+    private static final Color MARKER_COLOR = Color.MEDIUMVIOLETRED;
+    private static final Color BAND_COLOR = Color.MEDIUMVIOLETRED.deriveColor(0, 1, 1, 0.12);
+
+    private final SpectrumFileViewModel model;
+
+    MarkerOverlay(NumberAxis xAxis, NumberAxis yAxis, SpectrumFileViewModel model) {
+        super(xAxis, yAxis);
+        this.model = model;
+        InvalidationListener redrawListener = obs -> redraw();
+        model.markerFrequencyProperty().addListener(redrawListener);
+        model.deltaMarkerFrequencyProperty().addListener(redrawListener);
+        model.markerTargetProperty().addListener(redrawListener);
+    }
+
+    @Override
+    protected void draw(GraphicsContext gc) {
+        model.getOccupiedBand().ifPresent(band -> drawBand(gc, band));
+        drawMarker(gc, "M1", model.markerFrequencyProperty().get());
+        drawMarker(gc, "M2", model.deltaMarkerFrequencyProperty().get());
+    }
+
+    private void drawBand(GraphicsContext gc, BandPowerIndex.Band band) {
+        double left = toX(band.getLowerFrequency());
+        double right = toX(band.getUpperFrequency());
+        gc.setFill(BAND_COLOR);
+        gc.fillRect(left, getPlotTop(), right - left, getPlotBottom() - getPlotTop());
+    }
+
+    private void drawMarker(GraphicsContext gc, String name, double frequency) {
+        if (Double.isNaN(frequency)) {
+            return;
+        }
+        double x = Math.floor(toX(frequency)) + 0.5;
+        gc.setStroke(MARKER_COLOR);
+        gc.setLineWidth(1);
+        gc.setLineDashes(4, 3);
+        gc.strokeLine(x, getPlotTop(), x, getPlotBottom());
+        gc.setLineDashes();
+        double power = model.getMarkerPower(frequency);
+        if (!Double.isNaN(power)) {
+            double y = toY(power);
+            gc.strokePolygon(new double[]{x - 4, x, x + 4}, new double[]{y - 8, y, y - 8}, 3);
+            gc.setFill(MARKER_COLOR);
+            gc.fillText(name, x + 5, y - 4);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.MaskViolation;
+import com.torutk.spectrum.data.SpectrumMask;
+import javafx.beans.InvalidationListener;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the limit line of the mask, and the frequency ranges violating it over the chart.
+ */
+class MaskOverlay extends ChartOverlay {
+    private static final Color LIMIT_COLOR = Color.CRIMSON;
+    private static final Color VIOLATION_COLOR = Color.CRIMSON.deriveColor(0, 1, 1, 0.25);
+
+    private final SpectrumFileViewModel model;
+
+    MaskOverlay(NumberAxis xAxis, NumberAxis yAxis, SpectrumFileViewModel model) {
+        super(xAxis, yAxis);
+        this.model = model;
+        InvalidationListener redrawListener = obs -> redraw();
+        model.maskProperty().addListener(redrawListener);
+        model.useMaskProperty().addListener(redrawListener);
+        model.getMaskViolations().addListener(redrawListener);
+    }
+
+    @Override
+    protected void draw(GraphicsContext gc) {
+        SpectrumMask mask = model.maskProperty().get();
+        if (!model.useMaskProperty().get() || mask == null) {
+            return;
+        }
+        gc.setFill(VIOLATION_COLOR);
+        for (MaskViolation violation : model.getMaskViolations()) {
+            if (violation.getUpperFrequency() < getLowerFrequency()
+                    || violation.getLowerFrequency() > getUpperFrequency()) {
+                continue;
+            }
+            double left = toX(violation.getLowerFrequency());
+            double right = Math.max(left + 1, toX(violation.getUpperFrequency()));
+            gc.fillRect(left, getPlotTop(), right - left, getPlotBottom() - getPlotTop());
+        }
+        drawLimitLine(gc, mask);
+    }
+
+    /**
+     * Draw the limit line sampled at each pixel column, broken out of the mask.
+     */
+    private void drawLimitLine(GraphicsContext gc, SpectrumMask mask) {
+        gc.setStroke(LIMIT_COLOR);
+        gc.setLineWidth(1);
+        gc.beginPath();
+        boolean drawing = false;
+        for (double x = Math.floor(getPlotLeft()); x <= getPlotRight(); x++) {
+            double limit = mask.getLimitAt(toFrequency(x));
+            if (Double.isNaN(limit)) {
+                drawing = false;
+                continue;
+            }
+            if (drawing) {
+                gc.lineTo(x, toY(limit));
+            } else {
+                gc.moveTo(x, toY(limit));
+                drawing = true;
+            }
+        }
+        gc.stroke();
+    }
+}
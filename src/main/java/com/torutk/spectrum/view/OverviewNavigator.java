@@ -0,0 +1,226 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.PowerEnvelope;
+import com.torutk.spectrum.data.SpectrumData;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Strip under the chart showing the whole band of all loaded spectra, with the rectangle of the displayed range.
+ *
+ * Each spectrum is drawn by its coarse envelope of {@link #ENVELOPE_COLUMNS} columns, made once in background
+ * when the spectrum is loaded, so that drawing the strip never scans samples however large the spectrum is.
+ * The envelopes are drawn on a canvas of their own only when spectra, the size or the levels change,
+ * and the rectangle on another canvas above it, so that scrubbing redraws only the rectangle.
+ * The rectangle is moved by dragging inside, resized by dragging its edges, or jumps to a clicked point,
+ * and the displayed range follows it continuously.
+ */
+class OverviewNavigator extends Pane {
+    private static final Logger logger = Logger.getLogger(OverviewNavigator.class.getName());
+    private static final int ENVELOPE_COLUMNS = 2048;
+    private static final double EDGE_PIXELS = 4;
+    private static final double MIN_WIDTH_PIXELS = 2;
+    private static final Color TRACE_COLOR = Color.STEELBLUE.deriveColor(0, 1, 1, 0.6);
+    private static final Color RANGE_FILL_COLOR = Color.DODGERBLUE.deriveColor(0, 1, 1, 0.2);
+
+    private enum Drag { MOVE, LEFT_EDGE, RIGHT_EDGE }
+
+    private final Canvas traceCanvas = new Canvas();
+    private final Canvas canvas = new Canvas(); // of the rectangle, receiving mouse events
+    private final SpectrumFileViewModel model;
+    private final Map<SpectrumData, PowerEnvelope> envelopes = new IdentityHashMap<>();
+    private double lowerFrequency = Double.NaN; // of the whole band
+    private double upperFrequency = Double.NaN;
+    private Drag drag;
+    private double dragFrequency;
+    private Runnable onRangeChanged = () -> { };
+
+    OverviewNavigator(SpectrumFileViewModel model) {
+        this.model = model;
+        getStyleClass().add("overview-navigator");
+        getChildren().addAll(traceCanvas, canvas);
+        for (Canvas layer : List.of(traceCanvas, canvas)) {
+            layer.widthProperty().bind(widthProperty());
+            layer.heightProperty().bind(heightProperty());
+        }
+        InvalidationListener redrawListener = obs -> redraw();
+        InvalidationListener rangeListener = obs -> redrawRange();
+        canvas.widthProperty().addListener(redrawListener);
+        canvas.heightProperty().addListener(redrawListener);
+        model.startFrequencyProperty().addListener(rangeListener);
+        model.stopFrequencyProperty().addListener(rangeListener);
+        model.referenceLevelProperty().addListener(obs -> redrawTraces());
+        model.scaleProperty().addListener(obs -> redrawTraces());
+        canvas.setOnMouseMoved(event -> canvas.setCursor(cursorOf(dragOf(event.getX()))));
+        canvas.setOnMousePressed(this::startDrag);
+        canvas.setOnMouseDragged(this::drag);
+        canvas.setOnMouseReleased(event -> drag = null);
+    }
+
+    /**
+     * @param onRangeChanged called after the displayed range is changed by this navigator
+     */
+    void setOnRangeChanged(Runnable onRangeChanged) {
+        this.onRangeChanged = onRangeChanged;
+    }
+
+    /**
+     * Updates envelopes to the loaded spectra, making envelopes of newly loaded spectra in background.
+     */
+    void refresh() {
+        List<SpectrumData> loaded = model.getSpectrumDataList();
+        envelopes.keySet().removeIf(data -> !loaded.contains(data));
+        lowerFrequency = loaded.stream().mapToDouble(SpectrumData::getStartFrequency).min().orElse(Double.NaN);
+        upperFrequency = loaded.stream().mapToDouble(SpectrumData::getStopFrequency).max().orElse(Double.NaN);
+        redraw();
+        loaded.stream().filter(data -> !envelopes.containsKey(data)).forEach(data ->
+                CompletableFuture.supplyAsync(() -> PowerEnvelope.of(
+                        data, data.getStartFrequency(), data.getStopFrequency(), ENVELOPE_COLUMNS)
+                ).whenComplete((envelope, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        logger.warning("could not make overview of " + data.getName() + ": " + ex);
+                    } else if (model.getSpectrumDataList().contains(data)) {
+                        envelopes.put(data, envelope);
+                        redrawTraces();
+                    }
+                })));
+    }
+
+    private void redraw() {
+        redrawTraces();
+        redrawRange();
+    }
+
+    private void redrawTraces() {
+        GraphicsContext gc = traceCanvas.getGraphicsContext2D();
+        double width = traceCanvas.getWidth();
+        double height = traceCanvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        if (!(upperFrequency > lowerFrequency)) {
+            return;
+        }
+        double top = model.getReferenceLevel();
+        double bottom = top - model.getScale() * 10;
+        gc.setStroke(TRACE_COLOR);
+        gc.setLineWidth(1);
+        for (PowerEnvelope envelope : envelopes.values()) {
+            for (int column = 0; column < envelope.getColumns(); column++) {
+                float max = envelope.getMaxPower(column);
+                if (Float.isNaN(max)) {
+                    continue;
+                }
+                double x = Math.floor(toX(envelope.getFrequencyAt(column))) + 0.5;
+                double y1 = height * (top - max) / (top - bottom);
+                double y2 = height * (top - envelope.getMinPower(column)) / (top - bottom);
+                gc.strokeLine(x, Math.max(0, y1), x, Math.min(height, Math.max(y1 + 1, y2)));
+            }
+        }
+    }
+
+    private void redrawRange() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        if (!(upperFrequency > lowerFrequency)) {
+            return;
+        }
+        double left = toX(model.getStartFrequency());
+        double right = Math.max(left + MIN_WIDTH_PIXELS, toX(model.getStopFrequency()));
+        gc.setLineWidth(1);
+        gc.setFill(RANGE_FILL_COLOR);
+        gc.fillRect(left, 0, right - left, height);
+        gc.setStroke(Color.DODGERBLUE);
+        gc.strokeRect(left + 0.5, 0.5, right - left - 1, height - 1);
+    }
+
+    private double toX(double frequency) {
+        return (frequency - lowerFrequency) / (upperFrequency - lowerFrequency) * canvas.getWidth();
+    }
+
+    private double toFrequency(double x) {
+        return lowerFrequency + x / canvas.getWidth() * (upperFrequency - lowerFrequency);
+    }
+
+    /**
+     * @return the drag started at x, null if out of the rectangle
+     */
+    private Drag dragOf(double x) {
+        if (!(upperFrequency > lowerFrequency)) {
+            return null;
+        }
+        double left = toX(model.getStartFrequency());
+        double right = toX(model.getStopFrequency());
+        if (Math.abs(x - left) <= EDGE_PIXELS && right - left > 2 * EDGE_PIXELS) {
+            return Drag.LEFT_EDGE;
+        } else if (Math.abs(x - right) <= EDGE_PIXELS) {
+            return Drag.RIGHT_EDGE;
+        } else if (left < x && x < right) {
+            return Drag.MOVE;
+        }
+        return null;
+    }
+
+    private static Cursor cursorOf(Drag drag) {
+        if (drag == null) {
+            return Cursor.DEFAULT;
+        }
+        return drag == Drag.MOVE ? Cursor.MOVE : Cursor.H_RESIZE;
+    }
+
+    private void startDrag(MouseEvent event) {
+        drag = dragOf(event.getX());
+        if (drag == null && upperFrequency > lowerFrequency) { // jump the rectangle centered at the point
+            double halfSpan = model.getSpan() / 2;
+            double center = toFrequency(event.getX());
+            setRange(center - halfSpan, center + halfSpan);
+            drag = Drag.MOVE;
+        }
+        dragFrequency = toFrequency(event.getX());
+    }
+
+    private void drag(MouseEvent event) {
+        if (drag == null) {
+            return;
+        }
+        double frequency = toFrequency(Math.max(0, Math.min(canvas.getWidth(), event.getX())));
+        double minSpan = toFrequency(MIN_WIDTH_PIXELS) - lowerFrequency;
+        double start = model.getStartFrequency();
+        double stop = model.getStopFrequency();
+        switch (drag) {
+            case MOVE:
+                setRange(start + frequency - dragFrequency, stop + frequency - dragFrequency);
+                break;
+            case LEFT_EDGE:
+                setRange(Math.min(frequency, stop - minSpan), stop);
+                break;
+            case RIGHT_EDGE:
+                setRange(start, Math.max(frequency, start + minSpan));
+                break;
+        }
+        dragFrequency = frequency;
+    }
+
+    private void setRange(double start, double stop) {
+        if (start > model.getStartFrequency()) { // the stop first not to make the span negative on the way
+            model.setStopFrequency(stop);
+            model.setStartFrequency(start);
+        } else {
+            model.setStartFrequency(start);
+            model.setStopFrequency(stop);
+        }
+        onRangeChanged.run();
+    }
+}
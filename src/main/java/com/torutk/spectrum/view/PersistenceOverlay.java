@@ -0,0 +1,167 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.PersistenceGrid;
+import com.torutk.spectrum.data.SpectrumData;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Draws loaded sweeps as a persistence display over the chart, the hit count of each pixel by colors.
+ *
+ * Sweeps are accumulated into a {@link PersistenceGrid} of the plot size in background, and newly loaded sweeps
+ * are added to the grid, costing the columns of the grid per sweep.
+ * The grid is rebuilt from all sweeps only when its geometry, the axes, the plot size or the decay, is changed,
+ * at most once per pulse however many of them are changed together.
+ * While accumulating, the overlay is redrawn at most once per pulse.
+ * Sweeps are drawn by raw powers, neither detrended nor filtered.
+ */
+class PersistenceOverlay extends ChartOverlay {
+    private static final Logger logger = Logger.getLogger(PersistenceOverlay.class.getName());
+    private static final int[] PALETTE = createPalette(256);
+
+    private final SpectrumFileViewModel model;
+    private final AtomicBoolean redrawScheduled = new AtomicBoolean();
+    private volatile int generation; // incremented by rebuild, to abandon accumulating into the old grid
+    private boolean rebuildScheduled; // accessed in JavaFX thread only
+    private double[] gridGeometry; // geometry the grid is made of, null if no grid
+    private PersistenceGrid grid;
+    private WritableImage image;
+    private int[] pixels;
+
+    PersistenceOverlay(NumberAxis xAxis, NumberAxis yAxis, SpectrumFileViewModel model) {
+        super(xAxis, yAxis);
+        this.model = model;
+        InvalidationListener rebuildListener = obs -> scheduleRebuild();
+        xAxis.lowerBoundProperty().addListener(rebuildListener);
+        xAxis.upperBoundProperty().addListener(rebuildListener);
+        yAxis.lowerBoundProperty().addListener(rebuildListener);
+        yAxis.upperBoundProperty().addListener(rebuildListener);
+        widthProperty().addListener(rebuildListener);
+        heightProperty().addListener(rebuildListener);
+        visibleProperty().addListener(rebuildListener);
+        model.persistenceDecayProperty().addListener(rebuildListener);
+    }
+
+    /**
+     * Palette from blue of few hits through green and yellow to red of the most hits.
+     */
+    private static int[] createPalette(int size) {
+        int[] palette = new int[size];
+        for (int i = 0; i < size; i++) {
+            Color color = Color.hsb(240 * (1 - (double) i / (size - 1)), 1, 1);
+            palette[i] = 0xff000000 | (int) Math.round(color.getRed() * 255) << 16
+                    | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
+        }
+        return palette;
+    }
+
+    /**
+     * @return lower and upper frequency, bottom and top power, columns, rows and decay of the grid to be drawn,
+     * null if nothing is drawn
+     */
+    private double[] currentGeometry() {
+        int columns = (int) Math.round(getPlotRight() - getPlotLeft());
+        int rows = (int) Math.round(getPlotBottom() - getPlotTop());
+        if (!isVisible() || getScene() == null || columns <= 0 || rows <= 0
+                || getUpperFrequency() <= getLowerFrequency() || getTopPower() <= getBottomPower()) {
+            return null;
+        }
+        return new double[] {getLowerFrequency(), getUpperFrequency(), getBottomPower(), getTopPower(),
+                columns, rows, model.persistenceDecayProperty().get()};
+    }
+
+    /**
+     * Rebuilds the grid later in this pulse if its geometry is changed, coalescing changes of the axes and the size.
+     */
+    private void scheduleRebuild() {
+        if (!rebuildScheduled) {
+            rebuildScheduled = true;
+            Platform.runLater(() -> {
+                rebuildScheduled = false;
+                if (!Arrays.equals(currentGeometry(), gridGeometry)) {
+                    rebuild();
+                }
+            });
+        }
+    }
+
+    /**
+     * Discards the accumulated grid, then accumulates all loaded sweeps into a new grid of the current plot.
+     * Called when sweeps are removed or aligned again, as well as the geometry is changed.
+     */
+    void rebuild() {
+        generation++;
+        grid = null;
+        gridGeometry = currentGeometry();
+        if (gridGeometry == null) {
+            redraw();
+            return;
+        }
+        int columns = (int) gridGeometry[4];
+        int rows = (int) gridGeometry[5];
+        grid = new PersistenceGrid(
+                getLowerFrequency(), getUpperFrequency(), getBottomPower(), getTopPower(), columns, rows);
+        grid.setDecay(model.persistenceDecayProperty().get());
+        image = new WritableImage(columns, rows);
+        pixels = new int[columns * rows];
+        addAll(model.getAlignedSpectrumDataList());
+    }
+
+    /**
+     * Accumulates sweeps into the current grid in background, e.g. newly loaded sweeps.
+     *
+     * @param sweeps to be added in order
+     */
+    void addAll(List<SpectrumData> sweeps) {
+        if (grid == null || sweeps.isEmpty()) {
+            return;
+        }
+        PersistenceGrid target = grid;
+        int targetGeneration = generation;
+        CompletableFuture.runAsync(() -> {
+            for (SpectrumData sweep : sweeps) {
+                if (generation != targetGeneration) {
+                    return;
+                }
+                target.add(sweep);
+                scheduleRedraw();
+            }
+        }).whenComplete((result, ex) -> {
+            if (ex != null) {
+                logger.warning("could not accumulate sweeps: " + ex);
+            }
+        });
+    }
+
+    private void scheduleRedraw() {
+        if (redrawScheduled.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                redrawScheduled.set(false);
+                redraw();
+            });
+        }
+    }
+
+    @Override
+    protected void draw(GraphicsContext gc) {
+        if (grid == null || !isVisible()) {
+            return;
+        }
+        int columns = grid.getColumns();
+        int rows = grid.getRows();
+        grid.render(pixels, PALETTE);
+        image.getPixelWriter().setPixels(0, 0, columns, rows, PixelFormat.getIntArgbInstance(), pixels, 0, columns);
+        gc.drawImage(image, getPlotLeft(), getPlotTop(), columns, rows);
+    }
+}
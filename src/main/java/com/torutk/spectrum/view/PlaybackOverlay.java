@@ -0,0 +1,52 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.PowerEnvelope;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the current frame of the sweep player over the chart,
+ * each column of the envelope as a vertical span from the min to the max power.
+ */
+class PlaybackOverlay extends ChartOverlay {
+    private static final Color FRAME_COLOR = Color.web("#f3622d"); // default color of the first series
+
+    private final SweepPlayer player;
+
+    PlaybackOverlay(NumberAxis xAxis, NumberAxis yAxis, SweepPlayer player) {
+        super(xAxis, yAxis);
+        this.player = player;
+        player.currentFrameProperty().addListener(obs -> redraw());
+        visibleProperty().addListener(obs -> redraw());
+    }
+
+    @Override
+    protected void draw(GraphicsContext gc) {
+        PowerEnvelope frame = player.currentFrameProperty().get();
+        if (frame == null || !isVisible()) {
+            return;
+        }
+        gc.setStroke(FRAME_COLOR);
+        gc.setLineWidth(1);
+        gc.beginPath();
+        boolean drawing = false;
+        for (int c = 0; c < frame.getColumns(); c++) {
+            float max = frame.getMaxPower(c);
+            if (Float.isNaN(max)) {
+                drawing = false;
+                continue;
+            }
+            double x = toX(frame.getFrequencyAt(c));
+            if (drawing) {
+                gc.lineTo(x, toY(max));
+            } else {
+                gc.moveTo(x, toY(max));
+                drawing = true;
+            }
+            gc.lineTo(x, toY(frame.getMinPower(c)));
+            gc.lineTo(x, toY(max));
+        }
+        gc.stroke();
+    }
+}
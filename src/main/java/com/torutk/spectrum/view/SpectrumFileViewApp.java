@@ -1,7 +1,9 @@
 package com.torutk.spectrum.view;
 
 import com.torutk.spectrum.data.FileFinder;
+import com.torutk.spectrum.data.PerformanceMonitor;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -23,38 +25,85 @@ public class SpectrumFileViewApp extends Application {
     private static final Logger logger = Logger.getLogger(SpectrumFileViewApp.class.getName());
     private static final String CSS_FILENAME = "SpectrumFileView.css";
 
+    private SpectrumFileViewController controller;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
+        StartupTimeline.mark("toolkit");
         var resource = ResourceBundle.getBundle("com.torutk.spectrum.view.SpectrumFileViewApp");
-        Parent root = FXMLLoader.load(
-                SpectrumFileViewApp.class.getResource("SpectrumFileView.fxml"), resource
-        );
+        var loader = new FXMLLoader(SpectrumFileViewApp.class.getResource("SpectrumFileView.fxml"), resource);
+        Parent root = loader.load();
+        controller = loader.getController();
+        StartupTimeline.mark("fxml");
         var scene = new Scene(root);
-        setupStylesheet(scene);
+        scene.getStylesheets().add(getClass().getResource(CSS_FILENAME).toExternalForm());
         primaryStage.setScene(scene);
         primaryStage.setTitle(String.format("%s %s",
                 resource.getString("spectrum.view.title"),
                 resource.getString("spectrum.view.version")
         ));
+        logTimelineAtFirstPulse(scene);
         primaryStage.show();
+        StartupTimeline.mark("shown");
+        findCustomStylesheet(scene);
         logger.info("Spectrum File Viewer started.");
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.dispose();
+        }
+        PerformanceMonitor.logSummary();
+        logger.info("Spectrum File Viewer stopped.");
+    }
+
     /**
-     *  Load css file and apply to the specified scene.
-     *  At 1st, read from the classpath of this class.
-     *  2nd, if exist in current directory, read from there.
+     * Search the custom css file under the parent directory in background not to delay the first frame,
+     * and apply it to the specified scene over the built-in css file when found.
+     * On a network file system, the search may take seconds.
      *
      * @param scene to be applied css file
      */
-    private void setupStylesheet(Scene scene) {
-        scene.getStylesheets().add(getClass().getResource(CSS_FILENAME).toExternalForm());
-        try {
-            Path cssFile = FileFinder.find(Paths.get(".."), CSS_FILENAME, 3);
-            scene.getStylesheets().add(cssFile.toUri().toString());
-        } catch (IOException ex) {
-            logger.config("No custom css file found.");
-        }
+    private void findCustomStylesheet(Scene scene) {
+        var thread = new Thread(() -> {
+            var search = PerformanceMonitor.begin("find stylesheet", CSS_FILENAME);
+            try {
+                Path cssFile = FileFinder.find(Paths.get(".."), CSS_FILENAME, 3);
+                Platform.runLater(() -> {
+                    scene.getStylesheets().add(cssFile.toUri().toString());
+                    StartupTimeline.mark("custom css " + cssFile);
+                });
+            } catch (IOException ex) {
+                logger.config("No custom css file found.");
+            } finally {
+                search.close();
+            }
+        }, "stylesheet-finder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Log the startup timeline after the layout of the first frame.
+     *
+     * @param scene of the primary stage
+     */
+    private void logTimelineAtFirstPulse(Scene scene) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            private boolean done;
+
+            @Override
+            public void run() {
+                if (done) {
+                    return;
+                }
+                done = true;
+                StartupTimeline.mark("first pulse");
+                StartupTimeline.log();
+                Platform.runLater(() -> scene.removePostLayoutPulseListener(this)); // not while firing listeners
+            }
+        });
     }
 
     /**
@@ -89,6 +138,7 @@ public class SpectrumFileViewApp extends Application {
      * @param args command-line options
      */
     public static void main(String[] args) {
+        StartupTimeline.mark("main");
         setupLogging();
         logConfig();
         launch(args);
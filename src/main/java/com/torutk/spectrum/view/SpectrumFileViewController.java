@@ -1,49 +1,91 @@
 package com.torutk.spectrum.view;
 
+import com.torutk.spectrum.data.Carrier;
+import com.torutk.spectrum.data.CarrierTracker;
+import com.torutk.spectrum.data.MaskViolation;
+import com.torutk.spectrum.data.PerformanceMonitor;
+import com.torutk.spectrum.data.SpectrumData;
+import com.torutk.spectrum.data.SpectrumDataReader;
+import com.torutk.spectrum.data.SpectrumDataReaders;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ListChangeListener;
 import javafx.css.PseudoClass;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.geometry.Point2D;
 import javafx.scene.Cursor;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.Slider;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
 import javafx.scene.control.ToggleButton;
+import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.util.converter.DoubleStringConverter;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 public class SpectrumFileViewController implements Initializable {
     private static final Logger logger = Logger.getLogger(SpectrumFileViewController.class.getName());
     private static final PseudoClass HAZE_PSEUDO_CLASS = PseudoClass.getPseudoClass("haze");
+    private static final int SIMILAR_SERIES = 5;
+    private static final double OVERVIEW_HEIGHT = 48;
+    private static final PseudoClass PLAYBACK_PSEUDO_CLASS = PseudoClass.getPseudoClass("playback");
 
-    private FileChooser fileChooser = new FileChooser();
-    private DirectoryChooser directoryChooser = new DirectoryChooser();
+    private FileChooser fileChooser; // lazy, see getFileChooser()
+    private FileChooser planChooser; // lazy
+    private DirectoryChooser directoryChooser; // lazy
     private ResourceBundle resources;
     private double chartDragPointX;
     private final SpectrumFileViewModel model = SpectrumFileViewModel.INSTANCE;
+    private final Timeline performanceOverlayTimeline =
+            new Timeline(new KeyFrame(Duration.seconds(1), event -> updatePerformanceOverlay()));
+    private final Runnable layoutPulseListener = this::measureLayout;
+    private PersistenceOverlay persistenceOverlay;
+    private OverviewNavigator overviewNavigator;
+    private SweepPlayer sweepPlayer; // lazy, created when the playback is shown at first
+    private long layoutStartNanos; // 0 means not measuring
+    private double lastLayoutMillis = Double.NaN;
 
+    @FXML private VBox centerBox;
+    @FXML private SplitPane chartSplitPane;
+    @FXML private StackPane chartStackPane;
     @FXML private LineChart<Float, Float> chart;
     @FXML private NumberAxis xAxis;
     @FXML private NumberAxis yAxis;
@@ -57,15 +99,50 @@ public class SpectrumFileViewController implements Initializable {
     @FXML private CheckBox detrendCheckBox;
     @FXML private Label detrendFileLabel;
     @FXML private CheckBox rcFilterCheckBox;
+    @FXML private ToggleButton performanceToggleButton;
+    @FXML private Label performanceOverlay;
+    @FXML private Label markerTargetLabel;
+    @FXML private Label markerLabel;
+    @FXML private Label deltaMarkerLabel;
+    @FXML private Label bandPowerLabel;
+    @FXML private Label occupiedBandwidthLabel;
+    @FXML private CheckBox alignCheckBox;
+    @FXML private CheckBox persistenceCheckBox;
+    @FXML private TextField persistenceDecayField;
+    @FXML private CheckBox maskCheckBox;
+    @FXML private Label maskFileLabel;
+    @FXML private TextField maskMarginField;
+    @FXML private Label maskViolationLabel;
+    @FXML private CheckBox planCheckBox;
+    @FXML private Label planFileLabel;
+    @FXML private CheckBox carrierCheckBox;
+    @FXML private ToggleButton playbackToggleButton;
+    @FXML private Pane playbackBar;
+    @FXML private ToggleButton playToggleButton;
+    @FXML private Slider playbackSlider;
+    @FXML private ComboBox<Double> playbackSpeedComboBox;
+    @FXML private Label playbackLabel;
+    @FXML private TableView<Carrier> carrierTable;
+    @FXML private TableColumn<Carrier, String> carrierSpectrumColumn;
+    @FXML private TableColumn<Carrier, Number> carrierCenterColumn;
+    @FXML private TableColumn<Carrier, Number> carrierPeakColumn;
+    @FXML private TableColumn<Carrier, Number> carrierBandwidthColumn;
+    @FXML private TableColumn<Carrier, Number> carrierToNoiseColumn;
+    @FXML private TableView<CarrierTracker.Track> trackTable;
+    @FXML private TableColumn<CarrierTracker.Track, Number> trackFrequencyColumn;
+    @FXML private TableColumn<CarrierTracker.Track, Number> trackCountColumn;
+    @FXML private TableColumn<CarrierTracker.Track, Number> trackMaxColumn;
+    @FXML private TableColumn<CarrierTracker.Track, Number> trackMinColumn;
 
     @FXML
     private void open(ActionEvent ev) {
         logger.fine("User operation 'open' triggered.");
-        List<File> files = fileChooser.showOpenMultipleDialog(getStage());
+        List<File> files = getFileChooser().showOpenMultipleDialog(getStage());
         if (files == null) {
             logger.fine("User operation 'open' cancelled.");
             return;
         }
+        int loadedBefore = model.getSpectrumDataList().size();
         files.forEach(file -> {
             model.lastOpenDirectoryProperty().set(file.getParentFile());
             try {
@@ -74,14 +151,56 @@ public class SpectrumFileViewController implements Initializable {
                 logger.warning("could not parse file: " + file.getName());
             }
         });
+        refreshAfterOpen(loadedBefore);
+    }
+
+    /**
+     * Opens files reading only the samples in the displayed frequency range, for a narrow band of large files.
+     */
+    @FXML
+    private void openRange(ActionEvent ev) {
+        logger.fine("User operation 'open range' triggered.");
+        List<File> files = getFileChooser().showOpenMultipleDialog(getStage());
+        if (files == null) {
+            logger.fine("User operation 'open range' cancelled.");
+            return;
+        }
+        double lowerFrequency = model.getStartFrequency();
+        double upperFrequency = model.getStopFrequency();
+        int loadedBefore = model.getSpectrumDataList().size();
+        files.forEach(file -> {
+            model.lastOpenDirectoryProperty().set(file.getParentFile());
+            try {
+                model.loadFromFile(file.toPath(), lowerFrequency, upperFrequency);
+            } catch (IOException e) {
+                logger.warning("could not parse file: " + file.getName() + ", " + e.getMessage());
+            }
+        });
+        refreshAfterOpen(loadedBefore);
+    }
+
+    /**
+     * @param loadedBefore the number of spectra loaded before opening, spectra are appended in order of loading
+     */
+    private void refreshAfterOpen(int loadedBefore) {
+        overviewNavigator.refresh();
         recreateAllSeries();
         refreshSettingFields();
+        model.updateCarriers();
+        model.updateMaskViolations();
+        if (alignCheckBox.isSelected()) {
+            model.updateAlignment(this::recreateAlignedSeries);
+        } else {
+            List<SpectrumData> loaded = model.getSpectrumDataList();
+            persistenceOverlay.addAll(loaded.subList(Math.min(loadedBefore, loaded.size()), loaded.size()));
+        }
+        refreshPlaybackSweeps();
     }
 
     @FXML
     private void export(ActionEvent ev) {
         logger.fine("User operation 'export' triggered.");
-        File directory = directoryChooser.showDialog(getStage());
+        File directory = getDirectoryChooser().showDialog(getStage());
         if (directory == null) {
             logger.fine("User operation 'export' cancelled.");
             return;
@@ -95,6 +214,30 @@ public class SpectrumFileViewController implements Initializable {
         }
     }
 
+    @FXML
+    private void clearMarkers(ActionEvent ev) {
+        logger.fine("User operation 'clear markers' triggered.");
+        model.clearMarkers();
+    }
+
+    /**
+     * Adds a chart pane below, zoomed into the middle tenth of the main chart.
+     */
+    @FXML
+    private void addPane(ActionEvent ev) {
+        logger.fine("User operation 'add pane' triggered.");
+        double center = (model.getStartFrequency() + model.getStopFrequency()) / 2;
+        double halfSpan = model.getSpan() / 20;
+        Viewport viewport = model.createViewport(center - halfSpan, center + halfSpan);
+        var pane = new ViewportPane(viewport, model, resources);
+        pane.setOnClose(() -> {
+            chartSplitPane.getItems().remove(pane);
+            model.disposeViewport(viewport);
+        });
+        chartSplitPane.getItems().add(pane);
+        viewport.recreateAllSeries();
+    }
+
     @FXML
     private void showHelp(ActionEvent ev) {
 
@@ -116,7 +259,7 @@ public class SpectrumFileViewController implements Initializable {
 
     private void openDetrend() {
         logger.fine("User operation 'open detrend file' triggered.");
-        File file = fileChooser.showOpenDialog(getStage());
+        File file = getFileChooser().showOpenDialog(getStage());
         if (file == null) {
             logger.fine("User operation 'open detrended file' cancelled.");
             return;
@@ -129,18 +272,90 @@ public class SpectrumFileViewController implements Initializable {
         }
     }
 
+    private void openMask() {
+        logger.fine("User operation 'open mask baseline files' triggered.");
+        List<File> files = getFileChooser().showOpenMultipleDialog(getStage());
+        if (files == null) {
+            logger.fine("User operation 'open mask baseline files' cancelled.");
+            return;
+        }
+        try {
+            model.loadMaskFromFiles(files.stream().map(File::toPath).collect(Collectors.toList()));
+            model.updateMaskViolations();
+        } catch (IOException e) {
+            logger.warning("could not parse mask baseline files:" + files);
+        }
+    }
+
+    private void openFrequencyPlan() {
+        logger.fine("User operation 'open frequency plan file' triggered.");
+        File file = getPlanChooser().showOpenDialog(getStage());
+        if (file == null) {
+            logger.fine("User operation 'open frequency plan file' cancelled.");
+            return;
+        }
+        try {
+            model.loadFrequencyPlan(file.toPath());
+        } catch (IOException e) {
+            logger.warning("could not read frequency plan file:" + file + ", " + e.getMessage());
+        }
+    }
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         resources = resourceBundle;
-        fileChooser.setTitle(resources.getString("spectrum.view.filechooser.title"));
-        fileChooser.initialDirectoryProperty().bindBidirectional(model.lastOpenDirectoryProperty());
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Spectrum Files", "*.dat")
-        );
-        directoryChooser.setTitle(resources.getString("spectrum.view.directorychooser.title"));
-        directoryChooser.initialDirectoryProperty().bindBidirectional(model.lastOpenDirectoryProperty());
         initializeChart();
         initializeRightPane();
+        initializeMarkers();
+        initializeMask();
+        initializeFrequencyPlan();
+        initializeCarriers();
+        initializePersistence();
+        initializeOverview();
+        initializePlayback();
+        initializePerformanceOverlay();
+    }
+
+    /**
+     * Creates the file chooser of spectrum files at the first use, not to look up readers at startup.
+     */
+    private FileChooser getFileChooser() {
+        if (fileChooser == null) {
+            fileChooser = new FileChooser();
+            fileChooser.setTitle(resources.getString("spectrum.view.filechooser.title"));
+            fileChooser.initialDirectoryProperty().bindBidirectional(model.lastOpenDirectoryProperty());
+            List<SpectrumDataReader> readers = SpectrumDataReaders.getReaders();
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Spectrum Files", readers.stream()
+                    .flatMap(reader -> Stream.of(reader.getFilePatterns()))
+                    .distinct()
+                    .collect(Collectors.toList())
+            ));
+            readers.forEach(reader -> fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter(reader.getFormatName(), reader.getFilePatterns())
+            ));
+        }
+        return fileChooser;
+    }
+
+    private FileChooser getPlanChooser() {
+        if (planChooser == null) {
+            planChooser = new FileChooser();
+            planChooser.setTitle(resources.getString("spectrum.view.planchooser.title"));
+            planChooser.initialDirectoryProperty().bindBidirectional(model.lastOpenDirectoryProperty());
+            planChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Frequency Plan Files", "*.csv")
+            );
+        }
+        return planChooser;
+    }
+
+    private DirectoryChooser getDirectoryChooser() {
+        if (directoryChooser == null) {
+            directoryChooser = new DirectoryChooser();
+            directoryChooser.setTitle(resources.getString("spectrum.view.directorychooser.title"));
+            directoryChooser.initialDirectoryProperty().bindBidirectional(model.lastOpenDirectoryProperty());
+        }
+        return directoryChooser;
     }
 
     private void initializeChart() {
@@ -172,6 +387,21 @@ public class SpectrumFileViewController implements Initializable {
             refreshSettingFields();
         });
         chart.setOnMouseReleased(event -> chart.setCursor(Cursor.DEFAULT));
+        chart.setOnMouseClicked(event -> {
+            if (event.getButton() != MouseButton.PRIMARY || !event.isStillSincePress()) {
+                return;
+            }
+            Point2D point = xAxis.sceneToLocal(event.getSceneX(), event.getSceneY());
+            if (point.getX() < 0 || point.getX() > xAxis.getWidth()) {
+                return;
+            }
+            double frequency = xAxis.getValueForDisplay(point.getX()).doubleValue();
+            if (event.isShiftDown()) {
+                model.deltaMarkerFrequencyProperty().set(frequency);
+            } else {
+                model.markerFrequencyProperty().set(frequency);
+            }
+        });
     }
 
     private void updateChartLegendItemsHandler() {
@@ -201,7 +431,35 @@ public class SpectrumFileViewController implements Initializable {
     private ContextMenu createLegendLabelContextMenu(Label label) {
         var removeItem = new MenuItem(resources.getString("spectrum.view.chart.legend.menu.remove"));
         removeItem.setOnAction(event -> getSeriesByName(label.getText()).ifPresent(this::removeSeries));
-        return new ContextMenu(removeItem);
+        var markerItem = new MenuItem(resources.getString("spectrum.view.chart.legend.menu.marker"));
+        markerItem.setOnAction(event -> model.setMarkerTarget(label.getText()));
+        var similarItem = new MenuItem(resources.getString("spectrum.view.chart.legend.menu.similar"));
+        similarItem.setOnAction(event -> showSimilarSeries(label.getText()));
+        return new ContextMenu(removeItem, markerItem, similarItem);
+    }
+
+    /**
+     * Shows only the series of the spectrum and the most similar ones, others are hidden as clicked on the legend.
+     * The similarity is shown in the tooltip of the legend label.
+     */
+    private void showSimilarSeries(String name) {
+        Map<String, Double> similarities = new HashMap<>();
+        similarities.put(name, 1.0);
+        model.findSimilar(name, SIMILAR_SERIES).forEach(match -> {
+            similarities.put(match.getItem().getName(), match.getSimilarity());
+            logger.info(() -> String.format("similar to %s: %s (%.3f)",
+                    name, match.getItem().getName(), match.getSimilarity()));
+        });
+        chart.lookupAll(".chart-legend-item").stream()
+                .filter(node -> node instanceof Label)
+                .map(node -> (Label) node)
+                .forEach(label -> getSeriesByName(label.getText()).ifPresent(series -> {
+                    Double similarity = similarities.get(label.getText());
+                    series.getNode().setVisible(similarity != null);
+                    label.pseudoClassStateChanged(HAZE_PSEUDO_CLASS, similarity == null);
+                    label.setTooltip(similarity == null ? null : new Tooltip(String.format(
+                            resources.getString("spectrum.view.chart.legend.similarity"), similarity)));
+                }));
     }
 
     private void initializeRightPane() {
@@ -220,6 +478,290 @@ public class SpectrumFileViewController implements Initializable {
 
         model.useRcFilterProperty().bind(rcFilterCheckBox.selectedProperty());
         rcFilterCheckBox.selectedProperty().addListener((obs, ov, nv) -> recreateAllSeries());
+
+        model.useAlignProperty().bind(alignCheckBox.selectedProperty());
+        alignCheckBox.selectedProperty().addListener(
+                (obs, ov, nv) -> model.updateAlignment(this::recreateAlignedSeries));
+        model.markerTargetProperty().addListener((obs, ov, nv) -> {
+            if (alignCheckBox.isSelected()) {
+                model.updateAlignment(this::recreateAlignedSeries);
+            }
+        });
+    }
+
+    private void initializeMarkers() {
+        chartStackPane.getChildren().add(1, new MarkerOverlay(xAxis, yAxis, model));
+        markerTargetLabel.textProperty().bind(Bindings.select(model.markerTargetProperty(), "name"));
+        Stream.of(model.markerFrequencyProperty(), model.deltaMarkerFrequencyProperty(), model.markerTargetProperty(),
+                model.startFrequencyProperty(), model.stopFrequencyProperty())
+                .forEach(property -> property.addListener(obs -> refreshMarkerReadouts()));
+    }
+
+    /**
+     * refresh readouts of markers, band power and occupied bandwidth.
+     */
+    private void refreshMarkerReadouts() {
+        double marker = model.markerFrequencyProperty().get();
+        double deltaMarker = model.deltaMarkerFrequencyProperty().get();
+        double markerPower = model.getMarkerPower(marker);
+        markerLabel.setText(Double.isNaN(marker) ? "" : String.format(
+                resources.getString("spectrum.view.marker.readout"), marker, markerPower
+        ));
+        deltaMarkerLabel.setText(Double.isNaN(marker) || Double.isNaN(deltaMarker) ? "" : String.format(
+                resources.getString("spectrum.view.marker.delta.readout"),
+                deltaMarker - marker, model.getMarkerPower(deltaMarker) - markerPower
+        ));
+        double bandPower = model.getBandPower();
+        bandPowerLabel.setText(Double.isNaN(bandPower) ? "" : String.format(
+                resources.getString("spectrum.view.marker.bandpower"), bandPower
+        ));
+        occupiedBandwidthLabel.setText(model.getOccupiedBand()
+                .map(band -> String.format(resources.getString("spectrum.view.marker.obw"), band.getBandwidth()))
+                .orElse(""));
+    }
+
+    private void initializeMask() {
+        chartStackPane.getChildren().add(1, new MaskOverlay(xAxis, yAxis, model));
+        maskFileLabel.disableProperty().bind(maskCheckBox.selectedProperty().not());
+        maskFileLabel.setOnMouseClicked(event -> openMask());
+        maskFileLabel.textProperty().bind(Bindings.select(model.maskProperty(), "name"));
+        model.useMaskProperty().bind(maskCheckBox.selectedProperty());
+        maskCheckBox.selectedProperty().addListener((obs, ov, nv) -> model.updateMaskViolations());
+        var marginFormatter = new TextFormatter<>(new DoubleStringConverter(), model.maskMarginProperty().get());
+        maskMarginField.setTextFormatter(marginFormatter);
+        marginFormatter.valueProperty().addListener((obs, ov, nv) -> {
+            if (nv != null) {
+                model.maskMarginProperty().set(nv);
+                model.updateMask();
+                model.updateMaskViolations();
+            }
+        });
+        model.getMaskViolations().addListener((ListChangeListener<MaskViolation>) change -> {
+            var violations = model.getMaskViolations();
+            maskViolationLabel.setText(violations.isEmpty() ? "" : String.format(
+                    resources.getString("spectrum.view.mask.violations"), violations.size(),
+                    violations.stream().mapToDouble(MaskViolation::getExcess).max().orElse(0)
+            ));
+        });
+    }
+
+    private void initializeFrequencyPlan() {
+        var overlay = new FrequencyPlanOverlay(xAxis, yAxis, model);
+        chartStackPane.getChildren().add(1, overlay);
+        planFileLabel.disableProperty().bind(planCheckBox.selectedProperty().not());
+        planFileLabel.setOnMouseClicked(event -> openFrequencyPlan());
+        planFileLabel.textProperty().bind(Bindings.select(model.frequencyPlanProperty(), "name"));
+        model.usePlanProperty().bind(planCheckBox.selectedProperty());
+        chart.setOnMouseMoved(event -> {
+            Point2D point = xAxis.sceneToLocal(event.getSceneX(), event.getSceneY());
+            boolean inPlot = 0 <= point.getX() && point.getX() <= xAxis.getWidth();
+            overlay.setHoverFrequency(inPlot ? xAxis.getValueForDisplay(point.getX()).doubleValue() : Double.NaN);
+        });
+        chart.setOnMouseExited(event -> overlay.setHoverFrequency(Double.NaN));
+    }
+
+    private void initializeCarriers() {
+        chartStackPane.getChildren().add(1, new CarrierOverlay(xAxis, yAxis, model));
+        model.detectCarriersProperty().bind(carrierCheckBox.selectedProperty());
+        carrierCheckBox.selectedProperty().addListener((obs, ov, nv) -> model.updateCarriers());
+        carrierTable.disableProperty().bind(carrierCheckBox.selectedProperty().not());
+        carrierTable.setItems(model.getCarriers());
+        carrierSpectrumColumn.setCellValueFactory(
+                features -> new ReadOnlyObjectWrapper<>(features.getValue().getSpectrumName())
+        );
+        initializeCarrierColumn(carrierCenterColumn, Carrier::getCenterFrequency, "%.4f");
+        initializeCarrierColumn(carrierPeakColumn, Carrier::getPeakPower, "%.2f");
+        initializeCarrierColumn(carrierBandwidthColumn, Carrier::getBandwidth, "%.4f");
+        initializeCarrierColumn(carrierToNoiseColumn, Carrier::getCarrierToNoise, "%.1f");
+        carrierTable.getSelectionModel().selectedItemProperty().addListener((obs, ov, carrier) -> {
+            if (carrier != null) {
+                model.setMarkerTarget(carrier.getSpectrumName());
+                model.markerFrequencyProperty().set(carrier.getPeakFrequency());
+            }
+        });
+        trackTable.disableProperty().bind(carrierCheckBox.selectedProperty().not());
+        trackTable.setItems(model.getCarrierTracks());
+        initializeCarrierColumn(trackFrequencyColumn, CarrierTracker.Track::getFrequency, "%.4f");
+        initializeCarrierColumn(trackCountColumn, CarrierTracker.Track::getCount, "%.0f");
+        initializeCarrierColumn(trackMaxColumn, CarrierTracker.Track::getMaxPower, "%.2f");
+        initializeCarrierColumn(trackMinColumn, CarrierTracker.Track::getMinPower, "%.2f");
+        trackTable.getSelectionModel().selectedItemProperty().addListener((obs, ov, track) -> {
+            if (track != null) {
+                model.setMarkerTarget(track.getLastSpectrumName());
+                model.markerFrequencyProperty().set(track.getLastFrequency());
+            }
+        });
+    }
+
+    private <S> void initializeCarrierColumn(
+            TableColumn<S, Number> column, Function<S, Number> getter, String format
+    ) {
+        column.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(getter.apply(features.getValue())));
+        column.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format(format, item.doubleValue()));
+            }
+        });
+    }
+
+    private void initializePersistence() {
+        persistenceOverlay = new PersistenceOverlay(xAxis, yAxis, model);
+        chartStackPane.getChildren().add(1, persistenceOverlay);
+        persistenceOverlay.visibleProperty().bind(persistenceCheckBox.selectedProperty());
+        model.persistenceProperty().bind(persistenceCheckBox.selectedProperty());
+        persistenceCheckBox.selectedProperty().addListener((obs, ov, nv) -> recreateAllSeries());
+        persistenceDecayField.disableProperty().bind(persistenceCheckBox.selectedProperty().not());
+        var decayFormatter = new TextFormatter<>(new DoubleStringConverter(), model.persistenceDecayProperty().get());
+        persistenceDecayField.setTextFormatter(decayFormatter);
+        decayFormatter.valueProperty().addListener((obs, ov, nv) -> {
+            if (nv == null || nv <= 0 || nv > 1) { // out of (0, 1], restores the current decay
+                decayFormatter.setValue(model.persistenceDecayProperty().get());
+            } else {
+                model.persistenceDecayProperty().set(nv);
+            }
+        });
+    }
+
+    /**
+     * Adds the overview strip under the chart panes. Scrubbing it pans the chart by the axis only,
+     * and recreates the series only when resized more than twice the span the series are made for.
+     */
+    private void initializeOverview() {
+        overviewNavigator = new OverviewNavigator(model);
+        overviewNavigator.setPrefHeight(OVERVIEW_HEIGHT);
+        overviewNavigator.setMinHeight(OVERVIEW_HEIGHT);
+        centerBox.getChildren().add(overviewNavigator);
+        overviewNavigator.setOnRangeChanged(() -> {
+            if (model.needsRecreate()) {
+                recreateAllSeries();
+            }
+            refreshSettingFields();
+        });
+    }
+
+    private void initializePlayback() {
+        playbackBar.managedProperty().bind(playbackToggleButton.selectedProperty());
+        playbackBar.visibleProperty().bind(playbackToggleButton.selectedProperty());
+        playbackToggleButton.selectedProperty().addListener((obs, ov, nv) -> {
+            if (nv && sweepPlayer == null) {
+                createSweepPlayer();
+            }
+            chart.pseudoClassStateChanged(PLAYBACK_PSEUDO_CLASS, nv);
+            if (nv) {
+                refreshPlaybackSweeps();
+                refreshPlaybackViewport();
+            } else {
+                playToggleButton.setSelected(false);
+            }
+        });
+    }
+
+    /**
+     * Creates the player and binds the playback bar to it, when the playback is shown at first.
+     */
+    private void createSweepPlayer() {
+        sweepPlayer = new SweepPlayer();
+        var overlay = new PlaybackOverlay(xAxis, yAxis, sweepPlayer);
+        overlay.visibleProperty().bind(playbackToggleButton.selectedProperty());
+        chartStackPane.getChildren().add(1, overlay);
+        sweepPlayer.playingProperty().bindBidirectional(playToggleButton.selectedProperty());
+        playToggleButton.textProperty().bind(Bindings.when(playToggleButton.selectedProperty())
+                .then(resources.getString("spectrum.view.playback.pause"))
+                .otherwise(resources.getString("spectrum.view.playback.play")));
+
+        playbackSlider.setMin(0);
+        playbackSlider.setBlockIncrement(1);
+        playbackSlider.setMajorTickUnit(1);
+        playbackSlider.setSnapToTicks(true);
+        sweepPlayer.frameIndexProperty().addListener((obs, ov, nv) -> playbackSlider.setValue(nv.intValue()));
+        playbackSlider.valueProperty().addListener((obs, ov, nv) -> {
+            if (nv.intValue() != sweepPlayer.frameIndexProperty().get()) {
+                sweepPlayer.seek(nv.intValue());
+            }
+        });
+
+        playbackSpeedComboBox.getItems().addAll(5d, 10d, 15d, 30d, 60d);
+        playbackSpeedComboBox.setValue(sweepPlayer.framesPerSecondProperty().get());
+        sweepPlayer.framesPerSecondProperty().bind(playbackSpeedComboBox.valueProperty());
+
+        Stream.of(sweepPlayer.currentFrameProperty(), sweepPlayer.droppedFramesProperty())
+                .forEach(property -> property.addListener(obs -> refreshPlaybackLabel()));
+        Stream.of(model.startFrequencyProperty(), model.stopFrequencyProperty(), xAxis.widthProperty())
+                .forEach(property -> property.addListener(obs -> refreshPlaybackViewport()));
+    }
+
+    private void refreshPlaybackSweeps() {
+        if (!playbackToggleButton.isSelected()) {
+            return;
+        }
+        sweepPlayer.setSweeps(model.getSpectrumDataList());
+        playbackSlider.setMax(Math.max(0, sweepPlayer.getSweepCount() - 1));
+        refreshPlaybackLabel();
+    }
+
+    private void refreshPlaybackViewport() {
+        if (playbackToggleButton.isSelected()) {
+            sweepPlayer.setViewport(model.getStartFrequency(), model.getStopFrequency(), (int) xAxis.getWidth());
+        }
+    }
+
+    private void refreshPlaybackLabel() {
+        var frame = sweepPlayer.currentFrameProperty().get();
+        playbackLabel.setText(String.format(resources.getString("spectrum.view.playback.frame"),
+                sweepPlayer.frameIndexProperty().get() + 1, sweepPlayer.getSweepCount(),
+                frame == null ? "" : frame.getName(), sweepPlayer.droppedFramesProperty().get()
+        ));
+    }
+
+    private void initializePerformanceOverlay() {
+        performanceOverlay.visibleProperty().bind(performanceToggleButton.selectedProperty());
+        performanceOverlayTimeline.setCycleCount(Animation.INDEFINITE);
+        performanceToggleButton.selectedProperty().addListener((obs, ov, nv) -> {
+            if (nv) {
+                updatePerformanceOverlay();
+                performanceOverlayTimeline.play();
+            } else {
+                performanceOverlayTimeline.stop();
+            }
+        });
+        chart.sceneProperty().addListener((obs, ov, nv) -> {
+            if (ov != null) {
+                ov.removePostLayoutPulseListener(layoutPulseListener);
+            }
+            if (nv != null) {
+                nv.addPostLayoutPulseListener(layoutPulseListener);
+            }
+        });
+    }
+
+    /**
+     * Called after each layout pulse of the scene, records the layout time of recreated series if measuring.
+     */
+    private void measureLayout() {
+        if (layoutStartNanos == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - layoutStartNanos;
+        layoutStartNanos = 0;
+        PerformanceMonitor.histogram("layout").record(nanos);
+        lastLayoutMillis = nanos / 1e6;
+        updatePerformanceOverlay();
+    }
+
+    /**
+     * refresh the last recompute latency, points rendered and heap used in performance overlay.
+     */
+    private void updatePerformanceOverlay() {
+        if (!performanceToggleButton.isSelected()) {
+            return;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        performanceOverlay.setText(String.format(resources.getString("spectrum.view.performance.overlay"),
+                model.lastRecomputeMillisProperty().get(), lastLayoutMillis, model.renderedPointsProperty().get(),
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20
+        ));
     }
 
     private void initializeSettingsTextFields(TextField field) {
@@ -244,7 +786,17 @@ public class SpectrumFileViewController implements Initializable {
 
     private void recreateAllSeries() {
         model.recreateAllSeries();
+        layoutStartNanos = System.nanoTime();
         updateChartLegendItemsHandler();
+        updatePerformanceOverlay();
+    }
+
+    /**
+     * Recreates series of the spectra aligned again, and the persistence display accumulating them.
+     */
+    private void recreateAlignedSeries() {
+        recreateAllSeries();
+        persistenceOverlay.rebuild();
     }
 
     // This method is called from context menu of legend label to be removed.
@@ -252,9 +804,21 @@ public class SpectrumFileViewController implements Initializable {
     // So it should not be called in this thread but in another thread later.
     private void removeSeries(XYChart.Series<Float, Float> series) {
         model.removeSpectrumData(series.getName());
+        overviewNavigator.refresh();
+        persistenceOverlay.rebuild();
+        refreshPlaybackSweeps();
         Platform.runLater(this::updateChartLegendItemsHandler);
     }
 
+    /**
+     * Stops background threads of this controller, called when the application is stopped.
+     */
+    void dispose() {
+        if (sweepPlayer != null) {
+            sweepPlayer.dispose();
+        }
+    }
+
     private Stage getStage() {
         return (Stage) chart.getScene().getWindow();
     }
@@ -1,13 +1,27 @@
 package com.torutk.spectrum.view;
 
+import com.torutk.spectrum.data.BandPowerIndex;
+import com.torutk.spectrum.data.Carrier;
+import com.torutk.spectrum.data.CarrierDetector;
+import com.torutk.spectrum.data.CarrierTracker;
+import com.torutk.spectrum.data.FrequencyOffsetEstimator;
+import com.torutk.spectrum.data.FrequencyPlan;
+import com.torutk.spectrum.data.MaskViolation;
+import com.torutk.spectrum.data.PerformanceMonitor;
+import com.torutk.spectrum.data.SimilarityIndex;
 import com.torutk.spectrum.data.SpectrumData;
 import com.torutk.spectrum.data.SpectrumDataExporter;
-import com.torutk.spectrum.data.SpectrumDataParser;
+import com.torutk.spectrum.data.SpectrumDataReaders;
+import com.torutk.spectrum.data.SpectrumMask;
+import com.torutk.spectrum.data.SpectrumSketch;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,12 +29,20 @@ import javafx.scene.chart.XYChart;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
-import java.util.stream.Collector;
-import java.util.stream.IntStream;
+import java.util.stream.Collectors;
 
 /**
  * View Model of Spectrum Viewer Application.
@@ -35,6 +57,8 @@ enum SpectrumFileViewModel {
     INSTANCE;
 
     private static final int SPECTRUM_DISPLAY_PIXELS = 1024; // temporary assume 1k display pixel
+    private static final double OCCUPIED_POWER_RATIO = 0.99;
+    private static final double CARRIER_TRACK_TOLERANCE = 1.0; // MHz
     private static final Logger logger = Logger.getLogger(SpectrumFileViewModel.class.getName());
 
     private final DoubleProperty startFrequencyProperty = new SimpleDoubleProperty(950d);
@@ -46,12 +70,47 @@ enum SpectrumFileViewModel {
     private final BooleanProperty useDetrendProperty = new SimpleBooleanProperty();
     private final ObjectProperty<SpectrumData> detrendProperty = new SimpleObjectProperty<>();
     private final BooleanProperty useRcFilterProperty = new SimpleBooleanProperty();
+    private final DoubleProperty lastRecomputeMillisProperty = new SimpleDoubleProperty(Double.NaN);
+    private final IntegerProperty renderedPointsProperty = new SimpleIntegerProperty();
+    private final DoubleProperty markerFrequencyProperty = new SimpleDoubleProperty(Double.NaN);
+    private final DoubleProperty deltaMarkerFrequencyProperty = new SimpleDoubleProperty(Double.NaN);
+    private final ObjectProperty<SpectrumData> markerTargetProperty = new SimpleObjectProperty<>();
+    private final BooleanProperty detectCarriersProperty = new SimpleBooleanProperty();
+    private final ObservableList<Carrier> carriers = FXCollections.observableArrayList();
+    private final ObservableList<CarrierTracker.Track> carrierTracks = FXCollections.observableArrayList();
+    private final CarrierTracker carrierTracker = new CarrierTracker(new CarrierDetector(), CARRIER_TRACK_TOLERANCE);
+    private final BooleanProperty useMaskProperty = new SimpleBooleanProperty();
+    private final DoubleProperty maskMarginProperty = new SimpleDoubleProperty(3d);
+    private final ObjectProperty<SpectrumMask> maskProperty = new SimpleObjectProperty<>();
+    private final ObservableList<MaskViolation> maskViolations = FXCollections.observableArrayList();
+    private List<SpectrumData> maskBaselines = List.of();
+    private final BooleanProperty useAlignProperty = new SimpleBooleanProperty();
+    private final FrequencyOffsetEstimator offsetEstimator = new FrequencyOffsetEstimator();
+    private final Map<SpectrumData, Double> frequencyOffsets = new IdentityHashMap<>(); // to the align reference
+    private SpectrumData alignReference;
+    private final BooleanProperty usePlanProperty = new SimpleBooleanProperty();
+    private final ObjectProperty<FrequencyPlan> frequencyPlanProperty = new SimpleObjectProperty<>();
+    private final Map<FrequencyPlan.Channel, Double> channelPowers = new IdentityHashMap<>(); // of marker target
+    private final BooleanProperty persistenceProperty = new SimpleBooleanProperty();
+    private final DoubleProperty persistenceDecayProperty = new SimpleDoubleProperty(1d);
 
     private final ObjectProperty<File> lastOpenDirectoryProperty =
             new SimpleObjectProperty<>(new File(System.getProperty("user.dir")));
 
 
     private final List<SpectrumData> spectrumDataList = new ArrayList<>();
+    private final Map<SpectrumData, Instant> sweepTimes = new IdentityHashMap<>();
+    private final Map<Long, List<SpectrumData>> fingerprintIndex = new HashMap<>();
+    private final Set<String> loadedNames = new HashSet<>();
+    private final SimilarityIndex<SpectrumData> similarityIndex = new SimilarityIndex<>();
+    private final TraceCache traceCache = new TraceCache();
+    private final List<Viewport> viewports = new ArrayList<>();
+    private double seriesSpan = Double.NaN; // span the series of the main chart are decimated for
+
+    SpectrumFileViewModel() {
+        frequencyPlanProperty.addListener(obs -> channelPowers.clear());
+        markerTargetProperty.addListener(obs -> channelPowers.clear());
+    }
 
     /**
      * Loads spectrum data from the specified file, then holds in the spectrum list to be displayed.
@@ -60,17 +119,79 @@ enum SpectrumFileViewModel {
      * @throws IOException if the specified file cannot be read.
      */
     public void loadFromFile(Path path) throws IOException {
-        SpectrumData spectrum = SpectrumDataParser.parse(path);
-        if (spectrumDataList.contains(spectrum)) {
-            logger.info(() -> String.format("Already loaded %s from file %s ", spectrum, path));
+        try (var stage = PerformanceMonitor.begin("load", path.toString())) {
+            SpectrumData parsed = SpectrumDataReaders.read(path);
+            stage.setSamples(parsed.size());
+            hold(parsed, path);
+        }
+    }
+
+    /**
+     * Loads the samples in the frequency window from the specified file, then holds in the spectrum list
+     * to be displayed. Only the samples in the window are read from a data file.
+     *
+     * @param path the file path to be loaded.
+     * @param lowerFrequency lower edge of the window [MHz]
+     * @param upperFrequency upper edge of the window [MHz]
+     * @throws IOException if the specified file cannot be read, or has no sample in the window.
+     */
+    public void loadFromFile(Path path, double lowerFrequency, double upperFrequency) throws IOException {
+        try (var stage = PerformanceMonitor.begin("load", path.toString())) {
+            SpectrumData parsed = SpectrumDataReaders.read(path, lowerFrequency, upperFrequency);
+            stage.setSamples(parsed.size());
+            hold(parsed, path);
+        }
+    }
+
+    /**
+     * Holds the spectrum read from the file unless the same content is already loaded.
+     */
+    private void hold(SpectrumData parsed, Path path) throws IOException {
+        Optional<SpectrumData> duplicate = findSameContent(parsed);
+        if (duplicate.isPresent()) {
+            logger.info(() -> String.format("Already loaded %s as %s from file %s ",
+                    parsed, duplicate.get().getName(), path));
             return;
         }
+        SpectrumData spectrum = withUniqueName(parsed);
         logger.info(() -> String.format("Loaded %s from file %s", spectrum, path));
+        sweepTimes.put(spectrum, Files.getLastModifiedTime(path).toInstant());
         load(spectrum);
     }
 
+    /**
+     * @return the loaded spectrum of the same content, found by the fingerprint index in O(1)
+     */
+    private Optional<SpectrumData> findSameContent(SpectrumData spectrum) {
+        return fingerprintIndex.getOrDefault(spectrum.getFingerprint(), List.of()).stream()
+                .filter(spectrum::hasSameContent)
+                .findFirst();
+    }
+
+    /**
+     * Returns the spectrum named uniquely in the loaded spectra, since series are identified by the name.
+     * Files of same name in different directories are named with a suffix, e.g. "name (2)".
+     */
+    private SpectrumData withUniqueName(SpectrumData spectrum) {
+        String name = spectrum.getName();
+        for (int i = 2; loadedNames.contains(name); i++) {
+            name = String.format("%s (%d)", spectrum.getName(), i);
+        }
+        if (name.equals(spectrum.getName())) {
+            return spectrum;
+        }
+        return new SpectrumData(name, spectrum.getStartFrequency(), spectrum.getStopFrequency(),
+                spectrum.getReferenceLevel(), spectrum.getScale(), spectrum.getPowersAsBytes());
+    }
+
     private void load(SpectrumData spectrum) {
         spectrumDataList.add(spectrum);
+        loadedNames.add(spectrum.getName());
+        fingerprintIndex.computeIfAbsent(spectrum.getFingerprint(), key -> new ArrayList<>(1)).add(spectrum);
+        similarityIndex.add(spectrum, SpectrumSketch.of(spectrum));
+        if (markerTargetProperty.get() == null) {
+            markerTargetProperty.set(spectrum);
+        }
         setStartFrequency(spectrum.getStartFrequency());
         setStopFrequency(spectrum.getStopFrequency());
         setReferenceLevel(spectrum.getReferenceLevel());
@@ -84,7 +205,7 @@ enum SpectrumFileViewModel {
      * @throws IOException if the specified file cannot be read.
      */
     void loadDetrendFromFile(Path path) throws IOException {
-        detrendProperty.set(SpectrumDataParser.parse(path));
+        detrendProperty.set(SpectrumDataReaders.read(path));
         logger.info(String.format("Loaded Detrend %s from file %s", detrendProperty.get(), path));
     }
 
@@ -92,10 +213,11 @@ enum SpectrumFileViewModel {
      * Make a decision the rate to be decimate for display.
      *
      * @param samplingRate data's sampling rate.(means the number of points in the display frequency)
+     * @param span frequency span of the chart [MHz]
      * @return decimation ratio.(3 means 1 of 3 point is displayed)
      */
-    private int decimation(double samplingRate) {
-        int numPointsInData = (int) ((getStopFrequency() - getStartFrequency()) / samplingRate);
+    private int decimation(double samplingRate, double span) {
+        int numPointsInData = (int) (span / samplingRate);
         int decimation = numPointsInData / SPECTRUM_DISPLAY_PIXELS;
         logger.fine(String.format("arg %f, full points %d, decimation %d", samplingRate, numPointsInData, decimation));
         return decimation == 0 ? 1 : decimation;
@@ -189,88 +311,438 @@ enum SpectrumFileViewModel {
         return useRcFilterProperty;
     }
 
+    /**
+     * @return elapsed time of the last {@link #recreateAllSeries()} in ms, NaN if never recreated.
+     */
+    DoubleProperty lastRecomputeMillisProperty() {
+        return lastRecomputeMillisProperty;
+    }
+
+    /**
+     * @return the number of points in all series recreated at last.
+     */
+    IntegerProperty renderedPointsProperty() {
+        return renderedPointsProperty;
+    }
+
     ObjectProperty<File> lastOpenDirectoryProperty() {
         return lastOpenDirectoryProperty;
     }
 
+    /**
+     * @return loaded spectra in order of loading.
+     */
+    List<SpectrumData> getSpectrumDataList() {
+        return List.copyOf(spectrumDataList);
+    }
+
     void removeSpectrumData(String name) {
+        List<SpectrumData> removed = spectrumDataList.stream()
+                .filter(data -> data.getName().equals(name))
+                .collect(Collectors.toList());
         spectrumDataList.removeIf(data -> data.getName().equals(name));
+        loadedNames.remove(name);
+        for (SpectrumData data : removed) {
+            carrierTracker.remove(data);
+            sweepTimes.remove(data);
+            frequencyOffsets.remove(data);
+            similarityIndex.remove(data);
+            traceCache.remove(data);
+            List<SpectrumData> sameFingerprint = fingerprintIndex.get(data.getFingerprint());
+            sameFingerprint.remove(data);
+            if (sameFingerprint.isEmpty()) {
+                fingerprintIndex.remove(data.getFingerprint());
+            }
+        }
+        maskViolations.removeIf(violation -> violation.getSpectrumName().equals(name));
         spectrumSeriesProperty.get().removeIf(series -> series.getName().equals(name));
+        viewports.forEach(viewport -> viewport.removeSeries(name));
+        if (markerTargetProperty.get() != null && markerTargetProperty.get().getName().equals(name)) {
+            markerTargetProperty.set(spectrumDataList.isEmpty() ? null : spectrumDataList.get(0));
+        }
+        carriers.removeIf(carrier -> carrier.getSpectrumName().equals(name));
     }
 
-    private XYChart.Series<Float, Float> createDecimatedSeries(String name, float[] xArray, float[] yArray, int decimation) {
-        assert xArray.length == yArray.length;
-        Collector<XYChart.Data<Float, Float>, ObservableList<XYChart.Data<Float, Float>>,
-                XYChart.Series<Float, Float>> collector;
-        if (useRcFilterProperty().get()) {
-            collector = toSeriesWithRcFilter(name);
-        } else {
-            collector = toSeries(name);
+    /**
+     * @return true if carriers are detected on loaded spectra.
+     */
+    BooleanProperty detectCarriersProperty() {
+        return detectCarriersProperty;
+    }
+
+    /**
+     * @return carriers detected in the loaded spectra, in order of the spectra then frequency.
+     */
+    ObservableList<Carrier> getCarriers() {
+        return carriers;
+    }
+
+    /**
+     * @return tracks of carriers over all sweeps of the session, including removed ones, in order of frequency.
+     */
+    ObservableList<CarrierTracker.Track> getCarrierTracks() {
+        return carrierTracks;
+    }
+
+    /**
+     * Detects carriers of the loaded spectra in background, then updates the carrier list and the track list
+     * in JavaFX thread. Spectra already detected are not scanned again, only newly loaded ones are.
+     */
+    void updateCarriers() {
+        if (!detectCarriersProperty.get()) {
+            carriers.clear();
+            carrierTracks.clear();
+            return;
         }
-        return IntStream.range(0, xArray.length)
-                .filter(i -> i % decimation == 0)
-                .mapToObj(i -> new XYChart.Data<Float, Float>(xArray[i], maxWithin(yArray, i, i + decimation)))
-                .collect(collector);
+        List<SpectrumData> spectra = List.copyOf(spectrumDataList);
+        CompletableFuture<List<Carrier>> detection =
+                CompletableFuture.supplyAsync(() -> carrierTracker.update(spectra));
+        detection.thenApply(detected -> carrierTracker.getTracks())
+                .whenComplete((tracks, ex) -> Platform.runLater(() -> {
+                    if (ex != null) {
+                        logger.warning("could not detect carriers: " + ex);
+                    } else if (detectCarriersProperty.get() && spectra.equals(spectrumDataList)) {
+                        carriers.setAll(detection.join());
+                        carrierTracks.setAll(tracks);
+                    }
+                }));
     }
 
     /**
-     * Search max value from specified data array between from index to to index.
+     * Loads baseline spectra from the specified files, then holds the mask of max hold of them plus the margin.
      *
-     * @param data whole data to be searched
-     * @param fromIndex start index to be searched from the data
-     * @param toIndexExclude stop index (not include this value) to be searched from the data
-     * @return the max value
+     * @param paths the file paths to be loaded.
+     * @throws IOException if the specified file cannot be read.
+     */
+    void loadMaskFromFiles(List<Path> paths) throws IOException {
+        List<SpectrumData> baselines = new ArrayList<>();
+        for (Path path : paths) {
+            baselines.add(SpectrumDataReaders.read(path));
+        }
+        maskBaselines = baselines;
+        updateMask();
+    }
+
+    /**
+     * Recreates the mask from the baselines with the current margin.
+     */
+    void updateMask() {
+        if (maskBaselines.isEmpty()) {
+            return;
+        }
+        maskProperty.set(SpectrumMask.ofMaxHold(maskBaselines, maskMarginProperty.get()));
+        logger.info(String.format("Created mask %s with margin %.1f dB", maskProperty.get().getName(),
+                maskMarginProperty.get()));
+    }
+
+    BooleanProperty useMaskProperty() {
+        return useMaskProperty;
+    }
+
+    /**
+     * @return allowed power above the baseline of the mask in dB.
+     */
+    DoubleProperty maskMarginProperty() {
+        return maskMarginProperty;
+    }
+
+    ObjectProperty<SpectrumMask> maskProperty() {
+        return maskProperty;
+    }
+
+    /**
+     * @return violations of the mask by the loaded spectra.
      */
-    private float maxWithin(float[] data, int fromIndex, int toIndexExclude) {
-        return (float) IntStream.range(fromIndex, Math.min(toIndexExclude, data.length))
-                .mapToDouble(i -> data[i])
-                .max()
-                .orElse(data[fromIndex]);
+    ObservableList<MaskViolation> getMaskViolations() {
+        return maskViolations;
     }
 
     /**
-     * Collector collect the each element of {@code XYChart.Data<Float, Float>} to the list of
-     * {@code ObservableList<XYChart.Data<Float, Float>>} with applying RC filter, then output
-     * {@code XYChart.Series<Float, Float>}.
+     * Checks the loaded spectra against the mask in background, then updates the violations in JavaFX thread.
+     */
+    void updateMaskViolations() {
+        SpectrumMask mask = maskProperty.get();
+        if (!useMaskProperty.get() || mask == null) {
+            maskViolations.clear();
+            return;
+        }
+        List<SpectrumData> spectra = List.copyOf(spectrumDataList);
+        Map<SpectrumData, Instant> times = new IdentityHashMap<>(sweepTimes);
+        CompletableFuture.supplyAsync(() -> spectra.parallelStream()
+                .flatMap(data -> mask.check(data, times.getOrDefault(data, Instant.now())).stream())
+                .collect(Collectors.toList())
+        ).whenComplete((violations, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                logger.warning("could not check mask: " + ex);
+            } else if (useMaskProperty.get() && mask == maskProperty.get() && spectra.equals(spectrumDataList)) {
+                maskViolations.setAll(violations);
+            }
+        }));
+    }
+
+    /**
+     * Loads the frequency plan from the specified file.
      *
-     * @param name set to the return object of XYChart.Series.
-     * @return XYChart.Series to be displayed.
-     */
-    private static Collector<XYChart.Data<Float, Float>, ObservableList<XYChart.Data<Float, Float>>,
-            XYChart.Series<Float, Float>> toSeriesWithRcFilter(String name)
-    {
-        return Collector.of(
-                FXCollections::observableArrayList,
-                (l, e) -> {
-                    e.setYValue((float) SpectrumData.applyRcFilter(
-                            l.size() > 0 ? l.get(l.size() - 1).getYValue() : e.getYValue(), e.getYValue()
-                    ));
-                    l.add(e);
-                },
-                (left, right) -> {
-                    left.addAll(right);
-                    return left;
-                },
-                l -> new XYChart.Series<>(name, l)
-        );
-    }
-
-    /**
-     * Collector collect the each element of {@code XYChart.Data<Float, Float>} to the list of
-     * {@code ObservableList<XYChart.Data<Float, Float>>}, then output {@code XYChart.Series<Float, Float>}.
+     * @param path the file path to be loaded.
+     * @throws IOException if the specified file cannot be read or is malformed.
+     */
+    void loadFrequencyPlan(Path path) throws IOException {
+        FrequencyPlan plan = FrequencyPlan.load(path);
+        logger.info(String.format("Loaded frequency plan of %d channels from file %s",
+                plan.getChannels().size(), path));
+        frequencyPlanProperty.set(plan);
+    }
+
+    BooleanProperty usePlanProperty() {
+        return usePlanProperty;
+    }
+
+    ObjectProperty<FrequencyPlan> frequencyPlanProperty() {
+        return frequencyPlanProperty;
+    }
+
+    /**
+     * Returns the power of the marker target in the channel.
+     * Powers of all channels are calculated at once, when the plan or the marker target is changed.
      *
-     * @param name set to the return object of XYChart.Series.
-     * @return XYChart.Series to be displayed.
+     * @param channel of the frequency plan
+     * @return power [dBm], NaN if no target or out of the target
+     */
+    double getChannelPower(FrequencyPlan.Channel channel) {
+        SpectrumData target = markerTargetProperty.get();
+        FrequencyPlan plan = frequencyPlanProperty.get();
+        if (target == null || plan == null) {
+            return Double.NaN;
+        }
+        if (channelPowers.isEmpty()) {
+            double[] powers = plan.channelPowers(target);
+            for (int i = 0; i < powers.length; i++) {
+                channelPowers.put(plan.getChannels().get(i), powers[i]);
+            }
+        }
+        return channelPowers.getOrDefault(channel, Double.NaN);
+    }
+
+    /**
+     * @return true if spectra are displayed as a persistence display instead of series.
+     */
+    BooleanProperty persistenceProperty() {
+        return persistenceProperty;
+    }
+
+    /**
+     * @return factor of persistence multiplied to previous sweeps by each sweep, 1 is infinite persistence.
      */
-    private static Collector<XYChart.Data<Float, Float>, ObservableList<XYChart.Data<Float, Float>>,
-            XYChart.Series<Float, Float>> toSeries(String name)
-    {
-        return Collector.of(
-                FXCollections::observableArrayList,
-                ObservableList::add,
-                (l, r) -> {l.addAll(r); return l;},
-                l -> new XYChart.Series<>(name, l)
-        );
+    DoubleProperty persistenceDecayProperty() {
+        return persistenceDecayProperty;
+    }
+
+    /**
+     * @return loaded spectra aligned to the marker target if aligned, in order of loading.
+     */
+    List<SpectrumData> getAlignedSpectrumDataList() {
+        return spectrumDataList.stream().map(this::alignedOf).collect(Collectors.toList());
+    }
+
+    /**
+     * @return true if spectra are aligned in frequency to the marker target.
+     */
+    BooleanProperty useAlignProperty() {
+        return useAlignProperty;
+    }
+
+    /**
+     * Estimates frequency offsets of the loaded spectra to the marker target in background,
+     * then calls back in JavaFX thread. Offsets already estimated to the same target are not estimated again.
+     *
+     * @param onUpdated called when offsets are updated
+     */
+    void updateAlignment(Runnable onUpdated) {
+        SpectrumData reference = markerTargetProperty.get();
+        if (!useAlignProperty.get() || reference == null) {
+            onUpdated.run();
+            return;
+        }
+        if (reference != alignReference) {
+            frequencyOffsets.clear();
+            alignReference = reference;
+        }
+        List<SpectrumData> targets = spectrumDataList.stream()
+                .filter(data -> data != reference && !frequencyOffsets.containsKey(data))
+                .collect(Collectors.toList());
+        CompletableFuture.supplyAsync(() -> targets.parallelStream() // offsets in order of the targets
+                .map(data -> offsetEstimator.estimate(reference, data))
+                .collect(Collectors.toList())
+        ).whenComplete((offsets, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                logger.warning("could not estimate frequency offsets: " + ex);
+                return;
+            }
+            if (reference == alignReference) {
+                for (int i = 0; i < targets.size(); i++) {
+                    SpectrumData data = targets.get(i);
+                    double offset = offsets.get(i);
+                    logger.info(() -> String.format("Frequency offset of %s to %s: %.6f MHz",
+                            data.getName(), reference.getName(), offset));
+                    frequencyOffsets.put(data, offset);
+                }
+                onUpdated.run();
+            }
+        }));
+    }
+
+    /**
+     * @return the spectrum aligned to the marker target if aligned, otherwise the specified spectrum.
+     */
+    private SpectrumData alignedOf(SpectrumData data) {
+        Double offset = frequencyOffsets.get(data);
+        if (!useAlignProperty.get() || offset == null) {
+            return data;
+        }
+        return FrequencyOffsetEstimator.shift(data, -offset);
+    }
+
+    /**
+     * @return frequency of the marker in MHz, NaN if not placed.
+     */
+    DoubleProperty markerFrequencyProperty() {
+        return markerFrequencyProperty;
+    }
+
+    /**
+     * @return frequency of the delta marker in MHz, NaN if not placed.
+     */
+    DoubleProperty deltaMarkerFrequencyProperty() {
+        return deltaMarkerFrequencyProperty;
+    }
+
+    /**
+     * @return the spectrum measured by markers.
+     */
+    ObjectProperty<SpectrumData> markerTargetProperty() {
+        return markerTargetProperty;
+    }
+
+    /**
+     * Finds the loaded spectra most similar in shape to the named spectrum.
+     *
+     * @param name of the query spectrum
+     * @param k the number of results
+     * @return up to k matches in descending order of similarity, excluding the query spectrum
+     */
+    List<SimilarityIndex.Match<SpectrumData>> findSimilar(String name, int k) {
+        return spectrumDataList.stream()
+                .filter(data -> data.getName().equals(name))
+                .findFirst()
+                .map(query -> similarityIndex.nearest(similarityIndex.getSketch(query), k + 1).stream()
+                        .filter(match -> match.getItem() != query)
+                        .limit(k)
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
+    }
+
+    /**
+     * Set the spectrum of the specified name as the marker target.
+     *
+     * @param name of spectrum
+     */
+    void setMarkerTarget(String name) {
+        spectrumDataList.stream()
+                .filter(data -> data.getName().equals(name))
+                .findFirst()
+                .ifPresent(markerTargetProperty::set);
+    }
+
+    void clearMarkers() {
+        markerFrequencyProperty.set(Double.NaN);
+        deltaMarkerFrequencyProperty.set(Double.NaN);
+    }
+
+    /**
+     * Returns the power of the marker target at the specified frequency.
+     *
+     * @param frequency [MHz]
+     * @return power [dBm], NaN if no target or out of the target
+     */
+    double getMarkerPower(double frequency) {
+        SpectrumData target = markerTargetProperty.get();
+        if (target == null || Double.isNaN(frequency) || !target.containsFrequency((float) frequency)) {
+            return Double.NaN;
+        }
+        return target.getPowerAt((float) frequency);
+    }
+
+    /**
+     * Returns the measured band, between the marker and the delta marker if both placed, otherwise the display range.
+     *
+     * @return lower and upper frequency of the measured band [MHz]
+     */
+    private double[] getMeasuredBand() {
+        double marker = markerFrequencyProperty.get();
+        double deltaMarker = deltaMarkerFrequencyProperty.get();
+        if (Double.isNaN(marker) || Double.isNaN(deltaMarker)) {
+            return new double[]{getStartFrequency(), getStopFrequency()};
+        }
+        return new double[]{Math.min(marker, deltaMarker), Math.max(marker, deltaMarker)};
+    }
+
+    /**
+     * Returns the total power of the marker target in the measured band.
+     *
+     * @return band power [dBm], NaN if no target
+     */
+    double getBandPower() {
+        SpectrumData target = markerTargetProperty.get();
+        if (target == null) {
+            return Double.NaN;
+        }
+        double[] band = getMeasuredBand();
+        return target.getBandPowerIndex().bandPower(band[0], band[1]);
+    }
+
+    /**
+     * Returns the occupied band (99% power) of the marker target in the measured band.
+     *
+     * @return occupied band, empty if no target
+     */
+    Optional<BandPowerIndex.Band> getOccupiedBand() {
+        SpectrumData target = markerTargetProperty.get();
+        if (target == null) {
+            return Optional.empty();
+        }
+        double[] band = getMeasuredBand();
+        return Optional.of(target.getBandPowerIndex().occupiedBand(band[0], band[1], OCCUPIED_POWER_RATIO));
+    }
+
+    /**
+     * Decimates the trace by the max power of each points, then applies RC filter to the points if enabled.
+     *
+     * @param xArray frequencies of all samples [MHz]
+     * @param yArray powers of all samples [dBm]
+     * @param decimation 1 of decimation points is drawn
+     * @return the trace of points
+     */
+    private TraceCache.Trace decimate(float[] xArray, float[] yArray, int decimation) {
+        assert xArray.length == yArray.length;
+        int points = (xArray.length + decimation - 1) / decimation;
+        float[] frequencies = new float[points];
+        float[] powers = new float[points];
+        for (int point = 0; point < points; point++) {
+            int from = point * decimation;
+            int to = Math.min(from + decimation, yArray.length);
+            float max = yArray[from];
+            for (int i = from + 1; i < to; i++) {
+                max = Math.max(max, yArray[i]);
+            }
+            frequencies[point] = xArray[from];
+            powers[point] = max;
+        }
+        if (useRcFilterProperty().get()) {
+            for (int point = 0; point < points; point++) {
+                powers[point] = (float) SpectrumData.applyRcFilter(powers[Math.max(0, point - 1)], powers[point]);
+            }
+        }
+        return new TraceCache.Trace(frequencies, powers);
     }
 
     /**
@@ -290,25 +762,99 @@ enum SpectrumFileViewModel {
      * Recreate all XYChart.Series.
      * This is needed when start/stop frequency, reference level, or scale is changed
      * and re decimated with new value.
+     * No series is created in the persistence display, where spectra are drawn by the overlay.
+     * Series of viewports are recreated too, mostly from the traces cached for the main chart.
      */
     public void recreateAllSeries() {
-        ObservableList<XYChart.Series<Float, Float>> list = spectrumDataList.stream()
-                .map(data -> createDecimatedSeries(
-                        data.getName(), data.getFrequencies(), getPowersDetrend(data),
-                        decimation(data.getSamplingRate())
-                ))
+        var recompute = PerformanceMonitor.begin("recompute", "all series");
+        try {
+            seriesSpan = getSpan();
+            ObservableList<XYChart.Series<Float, Float>> list = createAllSeries(seriesSpan);
+            int points = list.stream().mapToInt(series -> series.getData().size()).sum();
+            recompute.setSamples(points);
+            try (var stage = PerformanceMonitor.begin("chart", "all series")) {
+                stage.setSamples(points);
+                spectrumSeriesProperty.set(list);
+            }
+            renderedPointsProperty.set(points);
+        } finally {
+            recompute.close();
+            lastRecomputeMillisProperty.set(recompute.getElapsedNanos() / 1e6);
+        }
+        viewports.forEach(Viewport::recreateAllSeries);
+        traceCache.logStatistics();
+    }
+
+    /**
+     * Creates series of all loaded spectra for a chart of the span, from the shared trace cache.
+     * No series is created in the persistence display.
+     *
+     * @param span frequency span of the chart [MHz]
+     * @return the series
+     */
+    ObservableList<XYChart.Series<Float, Float>> createAllSeries(double span) {
+        List<SpectrumData> drawn = persistenceProperty.get() ? List.of() : spectrumDataList;
+        return drawn.stream()
+                .map(data -> createSeries(data, span))
                 .collect(FXCollections::observableArrayList, ObservableList::add, ObservableList::addAll);
-        spectrumSeriesProperty.set(list);
+    }
+
+    private XYChart.Series<Float, Float> createSeries(SpectrumData loaded, double span) {
+        int decimation = decimation(loaded.getSamplingRate(), span);
+        Double offset = frequencyOffsets.get(loaded);
+        var key = new TraceCache.Key(loaded, decimation, useAlignProperty.get() && offset != null ? offset : 0,
+                isDetrendActive() ? detrendProperty.get() : null, useRcFilterProperty.get());
+        TraceCache.Trace trace = traceCache.get(key, () -> {
+            SpectrumData data = alignedOf(loaded);
+            float[] frequencies;
+            float[] powers;
+            try (var stage = PerformanceMonitor.begin(isDetrendActive() ? "detrend" : "decode", data.getName())) {
+                stage.setSamples(data.size());
+                frequencies = data.getFrequencies();
+                powers = getPowersDetrend(data);
+            }
+            try (var stage = PerformanceMonitor.begin("decimate", data.getName())) {
+                stage.setSamples(data.size());
+                return decimate(frequencies, powers, decimation);
+            }
+        });
+        ObservableList<XYChart.Data<Float, Float>> points = FXCollections.observableArrayList();
+        for (int i = 0; i < trace.frequencies.length; i++) {
+            points.add(new XYChart.Data<>(trace.frequencies[i], trace.powers[i]));
+        }
+        return new XYChart.Series<>(loaded.getName(), points);
+    }
+
+    private boolean isDetrendActive() {
+        return useDetrendProperty.get() && detrendProperty.get() != null;
     }
 
     private float[] getPowersDetrend(SpectrumData data) {
-        if (useDetrendProperty.get() && detrendProperty.get() != null) {
+        if (isDetrendActive()) {
             return data.getPowersDetrend(detrendProperty.get());
         } else {
             return data.getPowers();
         }
     }
 
+    /**
+     * Creates a viewport of the loaded spectra, drawn from the same trace cache as the main chart.
+     *
+     * @param startFrequency of the viewport [MHz]
+     * @param stopFrequency of the viewport [MHz]
+     * @return the viewport, to be disposed when its pane is closed
+     */
+    Viewport createViewport(double startFrequency, double stopFrequency) {
+        var viewport = new Viewport(this, startFrequency, stopFrequency);
+        viewports.add(viewport);
+        return viewport;
+    }
+
+    void disposeViewport(Viewport viewport) {
+        viewport.unlink();
+        viewports.remove(viewport);
+    }
+
     double getSpan() {
         return getStopFrequency() - getStartFrequency();
     }
@@ -317,4 +863,12 @@ enum SpectrumFileViewModel {
         double span = getSpan();
         return Math.max(span, previousSpan) / Math.min(span, previousSpan) > 2;
     }
+
+    /**
+     * @return true if the span is changed more than twice since the series are recreated last,
+     * e.g. by continuous resizing of small steps
+     */
+    boolean needsRecreate() {
+        return Double.isNaN(seriesSpan) || needsRecreate(seriesSpan);
+    }
 }
@@ -0,0 +1,47 @@
+package com.torutk.spectrum.view;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Milestones of the application startup, elapsed from the start of the JVM process.
+ *
+ * Milestones are marked by any thread, and logged as one line by {@link #log()} at the first layout pulse.
+ * Milestones marked after that, e.g. the custom stylesheet found in background, are logged one by one.
+ */
+final class StartupTimeline {
+    private static final Logger logger = Logger.getLogger(StartupTimeline.class.getName());
+    private static final long originMillis = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElseGet(System::currentTimeMillis);
+    private static final List<String> milestones = new ArrayList<>();
+    private static boolean logged;
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Marks the milestone at now.
+     *
+     * @param milestone name of the milestone
+     */
+    static synchronized void mark(String milestone) {
+        String entry = String.format("%s=%dms", milestone, System.currentTimeMillis() - originMillis);
+        if (logged) {
+            logger.info("Startup timeline: " + entry);
+        } else {
+            milestones.add(entry);
+        }
+    }
+
+    /**
+     * Logs the milestones marked so far.
+     */
+    static synchronized void log() {
+        logger.info("Startup timeline: " + String.join(", ", milestones));
+        milestones.clear();
+        logged = true;
+    }
+}
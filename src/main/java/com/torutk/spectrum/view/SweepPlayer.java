@@ -0,0 +1,252 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.PerformanceMonitor;
+import com.torutk.spectrum.data.PowerEnvelope;
+import com.torutk.spectrum.data.SpectrumData;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Plays the loaded sweeps in sequence like a video.
+ *
+ * Frames are envelopes of sweeps in the current viewport, prepared ahead of the current frame by background threads.
+ * The frame is advanced at the fixed rate by the animation timer only if the next frame has been prepared,
+ * otherwise the current frame is held and counted as dropped, so the JavaFX thread never waits for decoding.
+ * Prepared frames are discarded when the viewport is changed, and frames out of the prefetch range after a seek
+ * are cancelled, so that a frame not prepared yet is skipped by the background thread instead of decoded.
+ * All methods must be called in JavaFX thread.
+ */
+class SweepPlayer {
+    private static final Logger logger = Logger.getLogger(SweepPlayer.class.getName());
+    private static final int PREFETCH_FRAMES = 8;
+
+    private final IntegerProperty frameIndexProperty = new SimpleIntegerProperty();
+    private final BooleanProperty playingProperty = new SimpleBooleanProperty();
+    private final DoubleProperty framesPerSecondProperty = new SimpleDoubleProperty(30);
+    private final ObjectProperty<PowerEnvelope> currentFrameProperty = new SimpleObjectProperty<>();
+    private final IntegerProperty droppedFramesProperty = new SimpleIntegerProperty();
+
+    private final ExecutorService prefetcher = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            runnable -> {
+                var thread = new Thread(runnable, "sweep-prefetcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+    private final Map<Integer, CompletableFuture<PowerEnvelope>> frames = new HashMap<>();
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            tick(now);
+        }
+    };
+    private List<SpectrumData> sweeps = List.of();
+    private double lowerFrequency;
+    private double upperFrequency;
+    private int columns;
+    private long lastFrameNanos;
+
+    SweepPlayer() {
+        playingProperty.addListener((obs, ov, nv) -> {
+            if (nv) {
+                lastFrameNanos = 0;
+                timer.start();
+            } else {
+                timer.stop();
+            }
+        });
+    }
+
+    /**
+     * @return index of the current frame in the sweeps.
+     */
+    IntegerProperty frameIndexProperty() {
+        return frameIndexProperty;
+    }
+
+    BooleanProperty playingProperty() {
+        return playingProperty;
+    }
+
+    DoubleProperty framesPerSecondProperty() {
+        return framesPerSecondProperty;
+    }
+
+    /**
+     * @return envelope of the current frame, null if not prepared yet.
+     */
+    ObjectProperty<PowerEnvelope> currentFrameProperty() {
+        return currentFrameProperty;
+    }
+
+    /**
+     * @return the number of frames held since the next frame was not prepared in time.
+     */
+    IntegerProperty droppedFramesProperty() {
+        return droppedFramesProperty;
+    }
+
+    int getSweepCount() {
+        return sweeps.size();
+    }
+
+    /**
+     * Set the sweeps to be played, then shows the current frame.
+     *
+     * @param sweeps in order of frames
+     */
+    void setSweeps(List<SpectrumData> sweeps) {
+        this.sweeps = List.copyOf(sweeps);
+        discardFrames();
+        if (this.sweeps.isEmpty()) {
+            playingProperty.set(false);
+            currentFrameProperty.set(null);
+            return;
+        }
+        seek(Math.min(frameIndexProperty.get(), this.sweeps.size() - 1));
+    }
+
+    /**
+     * Set the viewport of frames, then prepares frames again if changed.
+     *
+     * @param lowerFrequency of the viewport [MHz]
+     * @param upperFrequency of the viewport [MHz]
+     * @param columns width of the viewport in pixels
+     */
+    void setViewport(double lowerFrequency, double upperFrequency, int columns) {
+        if (columns <= 0 || (lowerFrequency == this.lowerFrequency && upperFrequency == this.upperFrequency
+                && columns == this.columns)) {
+            return;
+        }
+        this.lowerFrequency = lowerFrequency;
+        this.upperFrequency = upperFrequency;
+        this.columns = columns;
+        discardFrames();
+        if (!sweeps.isEmpty()) {
+            seek(frameIndexProperty.get());
+        }
+    }
+
+    /**
+     * Shows the frame of the specified index, as soon as it is prepared.
+     *
+     * @param index of the frame
+     */
+    void seek(int index) {
+        if (sweeps.isEmpty() || columns <= 0) {
+            return;
+        }
+        int frameIndex = Math.max(0, Math.min(index, sweeps.size() - 1));
+        frameIndexProperty.set(frameIndex);
+        CompletableFuture<PowerEnvelope> frame = prefetch(frameIndex);
+        if (frame.isDone()) {
+            currentFrameProperty.set(frameOf(frame));
+        } else {
+            frame.thenAccept(envelope -> Platform.runLater(() -> {
+                if (frameIndexProperty.get() == frameIndex && frames.get(frameIndex) == frame) {
+                    currentFrameProperty.set(envelope);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Stops playing and background threads.
+     */
+    void dispose() {
+        playingProperty.set(false);
+        prefetcher.shutdownNow();
+    }
+
+    private void tick(long now) {
+        long interval = (long) (1e9 / framesPerSecondProperty.get());
+        if (lastFrameNanos != 0 && now - lastFrameNanos < interval) {
+            return;
+        }
+        int next = frameIndexProperty.get() + 1;
+        if (next >= sweeps.size()) {
+            playingProperty.set(false);
+            return;
+        }
+        CompletableFuture<PowerEnvelope> frame = prefetch(next);
+        if (!frame.isDone()) {
+            droppedFramesProperty.set(droppedFramesProperty.get() + 1);
+            return;
+        }
+        lastFrameNanos = lastFrameNanos == 0 || now - lastFrameNanos > 2 * interval ? now : lastFrameNanos + interval;
+        try (var stage = PerformanceMonitor.begin("frame", sweeps.get(next).getName())) {
+            stage.setSamples(columns);
+            frameIndexProperty.set(next);
+            currentFrameProperty.set(frameOf(frame));
+        }
+    }
+
+    /**
+     * @return the prepared frame, or the current frame if failed to prepare
+     */
+    private PowerEnvelope frameOf(CompletableFuture<PowerEnvelope> frame) {
+        return frame.isCompletedExceptionally() ? currentFrameProperty.get() : frame.join();
+    }
+
+    /**
+     * Requests frames from the specified index to prefetch frames ahead, and discards frames behind.
+     *
+     * @return the frame of the specified index
+     */
+    private CompletableFuture<PowerEnvelope> prefetch(int index) {
+        frames.entrySet().removeIf(entry -> {
+            if (entry.getKey() < index - 1 || entry.getKey() > index + PREFETCH_FRAMES) {
+                entry.getValue().cancel(false);
+                return true;
+            }
+            return false;
+        });
+        for (int i = index; i <= Math.min(sweeps.size() - 1, index + PREFETCH_FRAMES); i++) {
+            frames.computeIfAbsent(i, this::prepare);
+        }
+        return frames.get(index);
+    }
+
+    private CompletableFuture<PowerEnvelope> prepare(int index) {
+        SpectrumData sweep = sweeps.get(index);
+        double lower = lowerFrequency;
+        double upper = upperFrequency;
+        int width = columns;
+        var frame = new CompletableFuture<PowerEnvelope>();
+        prefetcher.execute(() -> {
+            if (frame.isDone()) { // cancelled while waiting, e.g. discarded by a seek
+                return;
+            }
+            try (var stage = PerformanceMonitor.begin("prefetch", sweep.getName())) {
+                stage.setSamples(sweep.size());
+                frame.complete(PowerEnvelope.of(sweep, lower, upper, width));
+            } catch (RuntimeException ex) {
+                logger.warning("could not prepare frame of " + sweep.getName() + ": " + ex);
+                frame.completeExceptionally(ex);
+            }
+        });
+        return frame;
+    }
+
+    private void discardFrames() {
+        frames.values().forEach(frame -> frame.cancel(false));
+        frames.clear();
+    }
+}
@@ -0,0 +1,142 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.SpectrumData;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Cache of traces of loaded spectra as drawn on charts, decoded, aligned, detrended, decimated and filtered,
+ * shared by the main chart and all viewports.
+ *
+ * A trace is keyed by the spectrum and every setting it is made with, so that a change of the settings
+ * needs no invalidation, and the traces of the previous settings are evicted as the least recently used.
+ * Charts of the same decimation share the trace, so N panes cost one trace, and a chart zoomed back
+ * to a previous decimation reuses it without decoding.
+ * The cache is bounded by the total points of traces, not the number of them, since a trace of a large spectrum
+ * at a small decimation is as large as the spectrum. A trace larger than the bound is not cached.
+ */
+final class TraceCache {
+    private static final Logger logger = Logger.getLogger(TraceCache.class.getName());
+    private static final long MAX_POINTS = 8_000_000; // 64MB of frequencies and powers
+
+    private final Map<Key, Trace> traces = new LinkedHashMap<>(16, 0.75f, true); // in order of access
+    private long points;
+    private long hits;
+    private long misses;
+
+    /**
+     * Decimated trace, frequencies and powers of points.
+     */
+    static final class Trace {
+        final float[] frequencies;
+        final float[] powers;
+
+        Trace(float[] frequencies, float[] powers) {
+            this.frequencies = frequencies;
+            this.powers = powers;
+        }
+
+        int size() {
+            return powers.length;
+        }
+    }
+
+    /**
+     * Settings a trace is made with. Spectra are compared by identity, as the loaded instance.
+     */
+    static final class Key {
+        private final SpectrumData data;
+        private final int decimation;
+        private final double offset;
+        private final SpectrumData detrend;
+        private final boolean rcFilter;
+
+        /**
+         * @param data loaded spectrum
+         * @param decimation 1 of decimation points is drawn
+         * @param offset frequency offset aligned by [MHz], 0 if not aligned
+         * @param detrend detrend spectrum, null if not detrended
+         * @param rcFilter true if RC filtered
+         */
+        Key(SpectrumData data, int decimation, double offset, SpectrumData detrend, boolean rcFilter) {
+            this.data = data;
+            this.decimation = decimation;
+            this.offset = offset;
+            this.detrend = detrend;
+            this.rcFilter = rcFilter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return data == that.data && decimation == that.decimation && offset == that.offset
+                    && detrend == that.detrend && rcFilter == that.rcFilter;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(data);
+            hash = 31 * hash + decimation;
+            hash = 31 * hash + Double.hashCode(offset);
+            hash = 31 * hash + System.identityHashCode(detrend);
+            return 31 * hash + Boolean.hashCode(rcFilter);
+        }
+    }
+
+    /**
+     * Returns the cached trace, or makes and caches it.
+     *
+     * @param key settings of the trace
+     * @param maker to make the trace if not cached
+     * @return the trace
+     */
+    synchronized Trace get(Key key, Supplier<Trace> maker) {
+        Trace trace = traces.get(key);
+        if (trace != null) {
+            hits++;
+            return trace;
+        }
+        misses++;
+        trace = maker.get();
+        if (trace.size() > MAX_POINTS) {
+            return trace;
+        }
+        traces.put(key, trace);
+        points += trace.size();
+        Iterator<Trace> eldest = traces.values().iterator();
+        while (points > MAX_POINTS) {
+            points -= eldest.next().size();
+            eldest.remove();
+        }
+        return trace;
+    }
+
+    /**
+     * Evicts all traces of the spectrum, e.g. removed from the chart.
+     *
+     * @param data loaded spectrum
+     */
+    synchronized void remove(SpectrumData data) {
+        traces.entrySet().removeIf(entry -> {
+            if (entry.getKey().data == data) {
+                points -= entry.getValue().size();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Logs the number and points of cached traces and the hit ratio.
+     */
+    synchronized void logStatistics() {
+        logger.fine(() -> String.format("trace cache: %d trace(s) of %d point(s), %d hit(s), %d miss(es)",
+                traces.size(), points, hits, misses));
+    }
+}
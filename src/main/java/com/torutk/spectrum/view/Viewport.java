@@ -0,0 +1,99 @@
+package com.torutk.spectrum.view;
+
+import com.torutk.spectrum.data.PerformanceMonitor;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+
+/**
+ * A view of the loaded spectra in its own frequency range, for a chart pane besides the main chart.
+ *
+ * The series are created from the trace cache of {@link SpectrumFileViewModel} shared with the main chart and
+ * other viewports, so that a viewport does not hold nor decode its own copy of spectra.
+ * The series cover the whole spectra decimated for the span, so that a pan only moves the axis, and the series
+ * are recreated only when the span is changed more than twice, in this viewport only.
+ * The frequency range can be linked to the main chart, then it follows the pans and zooms of the main chart,
+ * and keeps the last range when unlinked.
+ */
+class Viewport {
+    private final SpectrumFileViewModel model;
+    private final DoubleProperty startFrequencyProperty;
+    private final DoubleProperty stopFrequencyProperty;
+    private final BooleanProperty linkedProperty = new SimpleBooleanProperty();
+    private final ObjectProperty<ObservableList<XYChart.Series<Float, Float>>> seriesProperty =
+            new SimpleObjectProperty<>(FXCollections.observableArrayList());
+    private double seriesSpan = Double.NaN; // span the series are decimated for
+
+    Viewport(SpectrumFileViewModel model, double startFrequency, double stopFrequency) {
+        this.model = model;
+        startFrequencyProperty = new SimpleDoubleProperty(startFrequency);
+        stopFrequencyProperty = new SimpleDoubleProperty(stopFrequency);
+        startFrequencyProperty.addListener(obs -> recreateIfZoomed());
+        stopFrequencyProperty.addListener(obs -> recreateIfZoomed());
+        linkedProperty.addListener((obs, ov, nv) -> {
+            if (nv) {
+                startFrequencyProperty.bind(model.startFrequencyProperty());
+                stopFrequencyProperty.bind(model.stopFrequencyProperty());
+            } else {
+                unlink();
+            }
+        });
+    }
+
+    DoubleProperty startFrequencyProperty() {
+        return startFrequencyProperty;
+    }
+
+    DoubleProperty stopFrequencyProperty() {
+        return stopFrequencyProperty;
+    }
+
+    /**
+     * @return true if the frequency range is linked to the main chart
+     */
+    BooleanProperty linkedProperty() {
+        return linkedProperty;
+    }
+
+    ObjectProperty<ObservableList<XYChart.Series<Float, Float>>> seriesProperty() {
+        return seriesProperty;
+    }
+
+    double getSpan() {
+        return stopFrequencyProperty.get() - startFrequencyProperty.get();
+    }
+
+    void unlink() {
+        startFrequencyProperty.unbind();
+        stopFrequencyProperty.unbind();
+    }
+
+    /**
+     * Recreates the series of this viewport, from the cached traces of the current span.
+     */
+    void recreateAllSeries() {
+        try (var stage = PerformanceMonitor.begin("viewport", "all series")) {
+            seriesSpan = getSpan();
+            ObservableList<XYChart.Series<Float, Float>> list = model.createAllSeries(seriesSpan);
+            stage.setSamples(list.stream().mapToInt(series -> series.getData().size()).sum());
+            seriesProperty.set(list);
+        }
+    }
+
+    void removeSeries(String name) {
+        seriesProperty.get().removeIf(series -> series.getName().equals(name));
+    }
+
+    private void recreateIfZoomed() {
+        double span = getSpan();
+        if (span > 0 && !(Math.max(span, seriesSpan) / Math.min(span, seriesSpan) <= 2)) {
+            recreateAllSeries();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.torutk.spectrum.view;
+
+import javafx.beans.binding.Bindings;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+
+import java.util.ResourceBundle;
+
+/**
+ * Chart pane of a {@link Viewport}, besides the main chart.
+ *
+ * The frequency range is panned by dragging, and zoomed by the mouse wheel around the cursor,
+ * unless linked to the main chart by the check box. The power range is same as the main chart.
+ */
+class ViewportPane extends BorderPane {
+    private static final double ZOOM_FACTOR = 2;
+
+    private final Viewport viewport;
+    private final NumberAxis xAxis = new NumberAxis();
+    private final NumberAxis yAxis = new NumberAxis();
+    private final LineChart<Float, Float> chart;
+    private double dragPointX;
+    private Runnable onClose = () -> { };
+
+    @SuppressWarnings("unchecked")
+    ViewportPane(Viewport viewport, SpectrumFileViewModel model, ResourceBundle resources) {
+        this.viewport = viewport;
+        chart = new LineChart<>((Axis<Float>) (Axis<?>) xAxis, (Axis<Float>) (Axis<?>) yAxis);
+        chart.setCreateSymbols(false);
+        chart.setAnimated(false);
+        chart.setLegendVisible(false);
+        xAxis.setAutoRanging(false);
+        xAxis.setAnimated(false);
+        xAxis.lowerBoundProperty().bind(viewport.startFrequencyProperty());
+        xAxis.upperBoundProperty().bind(viewport.stopFrequencyProperty());
+        xAxis.tickUnitProperty().bind(Bindings.divide(
+                Bindings.subtract(viewport.stopFrequencyProperty(), viewport.startFrequencyProperty()), 10
+        ));
+        yAxis.setAutoRanging(false);
+        yAxis.setAnimated(false);
+        yAxis.lowerBoundProperty().bind(Bindings.subtract(
+                model.referenceLevelProperty(), Bindings.multiply(model.scaleProperty(), 10)
+        ));
+        yAxis.upperBoundProperty().bind(model.referenceLevelProperty());
+        yAxis.tickUnitProperty().bind(model.scaleProperty());
+        chart.dataProperty().bind(viewport.seriesProperty());
+        initializeMouse();
+
+        var linkCheckBox = new CheckBox(resources.getString("spectrum.view.pane.link"));
+        viewport.linkedProperty().bind(linkCheckBox.selectedProperty());
+        chart.mouseTransparentProperty().bind(linkCheckBox.selectedProperty());
+        var rangeLabel = new Label();
+        rangeLabel.textProperty().bind(Bindings.format(resources.getString("spectrum.view.pane.range"),
+                viewport.startFrequencyProperty(), viewport.stopFrequencyProperty()));
+        var spacer = new Pane();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        var closeButton = new Button(resources.getString("spectrum.view.pane.close"));
+        closeButton.setOnAction(event -> onClose.run());
+        var bar = new HBox(8, linkCheckBox, rangeLabel, spacer, closeButton);
+        bar.setAlignment(Pos.CENTER_LEFT);
+        bar.setPadding(new Insets(2, 4, 2, 4));
+        setTop(bar);
+        setCenter(chart);
+    }
+
+    private void initializeMouse() {
+        chart.setOnMousePressed(event -> {
+            chart.setCursor(Cursor.CLOSED_HAND);
+            dragPointX = event.getX();
+        });
+        chart.setOnMouseDragged(event -> {
+            double mouseMoveX = event.getX() - dragPointX;
+            if (Math.abs(mouseMoveX) < 5) { // decimate number of refresh chart
+                return;
+            }
+            double diff = viewport.getSpan() * mouseMoveX / xAxis.getWidth();
+            setRange(viewport.startFrequencyProperty().get() - diff, viewport.stopFrequencyProperty().get() - diff);
+            dragPointX = event.getX();
+        });
+        chart.setOnMouseReleased(event -> chart.setCursor(Cursor.DEFAULT));
+        chart.setOnScroll(event -> {
+            if (event.getDeltaY() == 0) {
+                return;
+            }
+            double x = xAxis.sceneToLocal(event.getSceneX(), event.getSceneY()).getX();
+            double center = xAxis.getValueForDisplay(Math.max(0, Math.min(xAxis.getWidth(), x))).doubleValue();
+            double factor = event.getDeltaY() > 0 ? 1 / ZOOM_FACTOR : ZOOM_FACTOR;
+            setRange(center - (center - viewport.startFrequencyProperty().get()) * factor,
+                    center + (viewport.stopFrequencyProperty().get() - center) * factor);
+        });
+    }
+
+    /**
+     * Sets the frequency range, the stop first if moving up not to make the span negative on the way.
+     */
+    private void setRange(double start, double stop) {
+        if (start > viewport.startFrequencyProperty().get()) {
+            viewport.stopFrequencyProperty().set(stop);
+            viewport.startFrequencyProperty().set(start);
+        } else {
+            viewport.startFrequencyProperty().set(start);
+            viewport.stopFrequencyProperty().set(stop);
+        }
+    }
+
+    Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * @param onClose called when the close button is pressed
+     */
+    void setOnClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+}
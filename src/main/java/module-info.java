@@ -1,6 +1,8 @@
 module com.torutk.spectrum {
+    requires com.torutk.spectrum.data;
     requires javafx.controls;
     requires javafx.fxml;
     requires java.logging;
+    requires jdk.management;
     opens com.torutk.spectrum.view to javafx.graphics, javafx.fxml;
 }